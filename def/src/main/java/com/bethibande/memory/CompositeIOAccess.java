@@ -0,0 +1,580 @@
+package com.bethibande.memory;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * An indexed access concatenating multiple indexed accesses, see {@link IOAccess#composite(IOAccess...)}. <br>
+ * Components are not copied, reads and writes straddling the boundary of two components are split.
+ * Primitives lying within a single component are read/written using the component directly.
+ * Appending a component is cheap, once many small components have been appended, {@link #consolidate()}
+ * copies them into a single off-heap component. <br>
+ * The byte order of the composite is applied to all of its components. <br>
+ * <b>!! Note:</b> Components must not be released while they are part of the composite,
+ * releasing the composite only releases memory allocated by {@link #consolidate()}. <br>
+ * <b>!! Thread-safety:</b> Composite accesses are not thread-safe.
+ */
+@SuppressWarnings("unused")
+public final class CompositeIOAccess extends IOAccess {
+
+    private static final int CONSOLIDATE_CHUNK = 1024 * 1024;
+
+    static CompositeIOAccess of(final IOAccess... components) {
+        final CompositeIOAccess composite = new CompositeIOAccess(new Components());
+        for(IOAccess component : components) {
+            composite.append(component);
+        }
+
+        return composite;
+    }
+
+    private final Components components;
+
+    private CompositeIOAccess(final Components components) {
+        super(0L, -1L, true, true, true, components);
+        this.components = components;
+    }
+
+    /**
+     * Appends a component, the length of the composite grows by the length of the component
+     * @param component an indexed access of known length
+     */
+    public void append(final IOAccess component) {
+        checkOwnership();
+        checkAvailable();
+        component.checkIndexed();
+        if(component == this) throw new IllegalArgumentException("A composite cannot contain itself.");
+        if(component.length() < 0) throw new IllegalArgumentException("The length of the component must be known.");
+
+        component.setByteOrder(getByteOrder());
+        components.append(component, false);
+    }
+
+    /**
+     * @return the number of components
+     */
+    public int componentCount() {
+        return components.count;
+    }
+
+    public IOAccess component(final int component) {
+        if(component < 0 || component >= components.count) throw new IndexOutOfBoundsException(component);
+        return components.components[component];
+    }
+
+    /**
+     * Copies all components into a single, newly allocated off-heap component.
+     * Memory allocated by previous calls to this method is freed, other components are not modified.
+     */
+    public void consolidate() {
+        checkOwnership();
+        checkAvailable();
+        if(components.count <= 1) return;
+
+        final long length = length();
+        final IOAccess target = IOAccess.unsafe(length);
+        target.setByteOrder(getByteOrder());
+
+        final byte[] chunk = new byte[(int) Math.min(CONSOLIDATE_CHUNK, length)];
+        for(long position = 0; position < length; ) {
+            final int size = (int) Math.min(chunk.length, length - position);
+            components.get(position, chunk, 0, size);
+            target.set(chunk, position, 0, size);
+            position += size;
+        }
+
+        components.release();
+        components.clear();
+        components.append(target, true);
+    }
+
+    @Override
+    public long length() {
+        return components.offsets[components.count];
+    }
+
+    @Override
+    public long remaining() {
+        return length() - index();
+    }
+
+    @Override
+    public long available() {
+        checkRead();
+        return remaining();
+    }
+
+    @Override
+    public void setByteOrder(final @NotNull ByteOrder order) {
+        super.setByteOrder(order);
+        for(int i = 0; i < components.count; i++) {
+            components.components[i].setByteOrder(order);
+        }
+    }
+
+    @Override
+    String backend() {
+        return "composite";
+    }
+
+    @Override
+    ByteBuffer writableBuffer(final long index, final int length) {
+        final IOAccess component = within(index, length);
+        return component != null ? component.writableBuffer(index - components.start, length): null;
+    }
+
+    @Override
+    ByteBuffer sharedBuffer(final long index, final int length) {
+        final IOAccess component = within(index, length);
+        return component != null ? component.sharedBuffer(index - components.start, length): null;
+    }
+
+    @Override
+    protected void checkReadIndex(final long offset) {
+        checkReadIndex(index(), offset);
+    }
+
+    @Override
+    protected void checkReadIndex(final long index, final long offset) {
+        if(offset < 0) throw new UnsupportedOperationException("Cannot read a negative amount of bytes.");
+        if(index < 0 || index + offset > length()) throw new IndexOutOfBoundsException(index + offset);
+    }
+
+    @Override
+    protected void checkWriteIndex(final long offset) {
+        checkWriteIndex(index(), offset);
+    }
+
+    @Override
+    protected void checkWriteIndex(final long index, final long offset) {
+        if(offset < 0) throw new UnsupportedOperationException("Cannot write a negative amount of bytes.");
+        if(index < 0 || index + offset > length()) throw new IndexOutOfBoundsException(index + offset);
+    }
+
+    //-------------------------------------------------------------------------------------------
+    // Primitives within a single component
+    //-------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the component containing the whole given region, its start offset is stored in {@link Components#start}
+     * @return the component, or null if the region straddles multiple components or lies outside the composite
+     */
+    private IOAccess within(final long index, final int size) {
+        final int slot = components.find(index);
+        if(slot < 0 || index + size > components.offsets[slot + 1]) return null;
+
+        return components.components[slot];
+    }
+
+    /**
+     * Checks the bounds of the next primitive and advances the index if it lies within a single component,
+     * the component is stored in {@link Components#last}
+     * @return the index of the primitive, or -1 if it straddles multiple components
+     */
+    private long next(final int size, final boolean write) {
+        if(write) {
+            checkWrite();
+            checkWriteIndex(size);
+        } else {
+            checkRead();
+            checkReadIndex(size);
+        }
+
+        return within(index(), size) != null ? idx(size): -1L;
+    }
+
+    @Override
+    public short getShort(final long index) {
+        final IOAccess component = within(index, 2);
+        return component != null ? component.getShort(index - components.start): super.getShort(index);
+    }
+
+    @Override
+    public int getInt(final long index) {
+        final IOAccess component = within(index, 4);
+        return component != null ? component.getInt(index - components.start): super.getInt(index);
+    }
+
+    @Override
+    public long getLong(final long index) {
+        final IOAccess component = within(index, 8);
+        return component != null ? component.getLong(index - components.start): super.getLong(index);
+    }
+
+    @Override
+    public float getFloat(final long index) {
+        final IOAccess component = within(index, 4);
+        return component != null ? component.getFloat(index - components.start): super.getFloat(index);
+    }
+
+    @Override
+    public double getDouble(final long index) {
+        final IOAccess component = within(index, 8);
+        return component != null ? component.getDouble(index - components.start): super.getDouble(index);
+    }
+
+    @Override
+    public void setShort(final short s, final long index) {
+        final IOAccess component = within(index, 2);
+        if(component == null) {
+            super.setShort(s, index);
+            return;
+        }
+
+        component.setShort(s, index - components.start);
+    }
+
+    @Override
+    public void setInt(final int i, final long index) {
+        final IOAccess component = within(index, 4);
+        if(component == null) {
+            super.setInt(i, index);
+            return;
+        }
+
+        component.setInt(i, index - components.start);
+    }
+
+    @Override
+    public void setLong(final long l, final long index) {
+        final IOAccess component = within(index, 8);
+        if(component == null) {
+            super.setLong(l, index);
+            return;
+        }
+
+        component.setLong(l, index - components.start);
+    }
+
+    @Override
+    public void setFloat(final float f, final long index) {
+        final IOAccess component = within(index, 4);
+        if(component == null) {
+            super.setFloat(f, index);
+            return;
+        }
+
+        component.setFloat(f, index - components.start);
+    }
+
+    @Override
+    public void setDouble(final double d, final long index) {
+        final IOAccess component = within(index, 8);
+        if(component == null) {
+            super.setDouble(d, index);
+            return;
+        }
+
+        component.setDouble(d, index - components.start);
+    }
+
+    @Override
+    public short readShort() {
+        final long index = next(2, false);
+        return index < 0 ? super.readShort(): components.components[components.last].getShort(index - components.start);
+    }
+
+    @Override
+    public int readInt() {
+        final long index = next(4, false);
+        return index < 0 ? super.readInt(): components.components[components.last].getInt(index - components.start);
+    }
+
+    @Override
+    public long readLong() {
+        final long index = next(8, false);
+        return index < 0 ? super.readLong(): components.components[components.last].getLong(index - components.start);
+    }
+
+    @Override
+    public float readFloat() {
+        final long index = next(4, false);
+        return index < 0 ? super.readFloat(): components.components[components.last].getFloat(index - components.start);
+    }
+
+    @Override
+    public double readDouble() {
+        final long index = next(8, false);
+        return index < 0 ? super.readDouble(): components.components[components.last].getDouble(index - components.start);
+    }
+
+    @Override
+    public void writeShort(final short s) {
+        final long index = next(2, true);
+        if(index < 0) {
+            super.writeShort(s);
+            return;
+        }
+
+        components.components[components.last].setShort(s, index - components.start);
+    }
+
+    @Override
+    public void writeInt(final int i) {
+        final long index = next(4, true);
+        if(index < 0) {
+            super.writeInt(i);
+            return;
+        }
+
+        components.components[components.last].setInt(i, index - components.start);
+    }
+
+    @Override
+    public void writeLong(final long l) {
+        final long index = next(8, true);
+        if(index < 0) {
+            super.writeLong(l);
+            return;
+        }
+
+        components.components[components.last].setLong(l, index - components.start);
+    }
+
+    @Override
+    public void writeFloat(final float f) {
+        final long index = next(4, true);
+        if(index < 0) {
+            super.writeFloat(f);
+            return;
+        }
+
+        components.components[components.last].setFloat(f, index - components.start);
+    }
+
+    @Override
+    public void writeDouble(final double d) {
+        final long index = next(8, true);
+        if(index < 0) {
+            super.writeDouble(d);
+            return;
+        }
+
+        components.components[components.last].setDouble(d, index - components.start);
+    }
+
+    /**
+     * The components of a composite, reads and writes are split at component boundaries
+     */
+    private static final class Components implements IOAccessible {
+
+        private IOAccess[] components = new IOAccess[4];
+        private boolean[] owned = new boolean[4];
+        /**
+         * offsets[i] is the index of the first byte of component i, offsets[count] is the length of the composite
+         */
+        private long[] offsets = new long[5];
+        private int count = 0;
+
+        /**
+         * The component last found by {@link #find(long)}, sequential accesses usually hit the same component
+         */
+        private int last = 0;
+        /**
+         * The start offset of the component last found by {@link #find(long)}
+         */
+        private long start = 0L;
+
+        private long position = 0L;
+
+        private void append(final IOAccess component, final boolean owned) {
+            if(count == components.length) {
+                this.components = Arrays.copyOf(components, count * 2);
+                this.owned = Arrays.copyOf(this.owned, count * 2);
+                this.offsets = Arrays.copyOf(offsets, count * 2 + 1);
+            }
+
+            components[count] = component;
+            this.owned[count] = owned;
+            offsets[count + 1] = offsets[count] + component.length();
+            count++;
+        }
+
+        private void clear() {
+            Arrays.fill(components, 0, count, null);
+            count = 0;
+            last = 0;
+            start = 0L;
+        }
+
+        /**
+         * @return the component containing the given index, or -1 if the index lies outside the composite
+         */
+        private int find(final long index) {
+            if(index < 0 || index >= offsets[count]) return -1;
+
+            int slot = last;
+            if(index < offsets[slot] || index >= offsets[slot + 1]) {
+                int low = 0;
+                int high = count - 1;
+                while(low < high) {
+                    final int mid = (low + high + 1) >>> 1;
+                    if(offsets[mid] <= index) {
+                        low = mid;
+                    } else {
+                        high = mid - 1;
+                    }
+                }
+                slot = low;
+            }
+
+            // skip empty components
+            while(offsets[slot + 1] <= index) slot++;
+
+            last = slot;
+            start = offsets[slot];
+            return slot;
+        }
+
+        private void checkRange(final long index, final long length) {
+            if(index < 0 || length < 0 || index + length > offsets[count]) throw new IndexOutOfBoundsException(index + length);
+        }
+
+        private void get(final long index, final byte[] dst, final int off, final int len) {
+            checkRange(index, len);
+
+            long position = index;
+            int done = 0;
+            while(done < len) {
+                final int slot = find(position);
+                final IOAccess component = components[slot];
+                final long local = position - start;
+                final int size = (int) Math.min(len - done, offsets[slot + 1] - position);
+
+                if(component instanceof UnsafeIOAccess unsafe) {
+                    unsafe.copyToHeap(local, dst, off + done, size);
+                } else {
+                    final ByteBuffer buffer = component.buffer(local, size);
+                    if(buffer != null) {
+                        buffer.get(dst, off + done, size);
+                    } else {
+                        System.arraycopy(component.get(local, size), 0, dst, off + done, size);
+                    }
+                }
+
+                position += size;
+                done += size;
+            }
+        }
+
+        @Override
+        public String backend() {
+            return "composite";
+        }
+
+        @Override
+        public ByteBuffer asByteBuffer(final long index, final int length) {
+            final int slot = find(index);
+            if(slot < 0 || index + length > offsets[slot + 1]) return null;
+
+            return components[slot].buffer(index - start, length);
+        }
+
+        @Override
+        public void setIndex(final long index) {
+            this.position = index;
+        }
+
+        @Override
+        public void skip(final long bytes) {
+            this.position += bytes;
+        }
+
+        @Override
+        public void flush() {
+            for(int i = 0; i < count; i++) {
+                if(!components[i].isIndexed()) components[i].flush();
+            }
+        }
+
+        /**
+         * Releases components allocated by the composite
+         */
+        @Override
+        public void release() {
+            for(int i = 0; i < count; i++) {
+                if(owned[i]) components[i].release();
+            }
+        }
+
+        @Override
+        public byte read() {
+            return get(position++);
+        }
+
+        @Override
+        public byte[] read(final int len) {
+            final byte[] data = get(position, len);
+            position += len;
+            return data;
+        }
+
+        @Override
+        public byte get(final long index) {
+            final int slot = find(index);
+            if(slot < 0) throw new IndexOutOfBoundsException(index);
+
+            return components[slot].get(index - start);
+        }
+
+        @Override
+        public byte[] get(final long index, final int length) {
+            final byte[] data = new byte[length];
+            get(index, data, 0, length);
+            return data;
+        }
+
+        @Override
+        public void write(final byte b) {
+            set(b, position++);
+        }
+
+        @Override
+        public void write(final byte[] data, final int off, final int len) {
+            set(data, position, off, len);
+            position += len;
+        }
+
+        @Override
+        public void set(final byte b, final long index) {
+            final int slot = find(index);
+            if(slot < 0) throw new IndexOutOfBoundsException(index);
+
+            components[slot].set(b, index - start);
+        }
+
+        @Override
+        public void set(final byte[] b, final long index, final int off, final int len) {
+            checkRange(index, len);
+
+            long position = index;
+            int done = 0;
+            while(done < len) {
+                final int slot = find(position);
+                final int size = (int) Math.min(len - done, offsets[slot + 1] - position);
+                components[slot].set(b, position - start, off + done, size);
+
+                position += size;
+                done += size;
+            }
+        }
+
+        @Override
+        public void copyFrom(final IOAccessible accessible, final long index, final long offset, final int length) {
+            set(accessible.get(offset, length), index, 0, length);
+        }
+
+        @Override
+        public void copyFrom(final IOAccessible accessible, final long offset, final int length) {
+            write(accessible.get(offset, length), 0, length);
+        }
+
+        @Override
+        public void copyFrom(final IOAccessible accessible, final int length) {
+            write(accessible.read(length), 0, length);
+        }
+    }
+}
@@ -0,0 +1,552 @@
+package com.bethibande.memory;
+
+import org.jetbrains.annotations.NotNull;
+import sun.misc.Unsafe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * An indexed, off-heap access growing on write, see {@link IOAccess#elastic(long)}. <br>
+ * The access tracks its size, the index after the last byte written, separately from its capacity.
+ * Writes past the capacity grow the memory using {@link Unsafe#reallocateMemory(long, long)}, the new capacity is
+ * chosen by the {@link GrowthPolicy}. Reads are limited to the size, bytes skipped by writing past the size are set to 0.
+ * {@link #trim()} shrinks the capacity to the size once writing is done.
+ * The memory is freed when releasing the access or during finalization. <br>
+ * <b>!! Note:</b> Growing the access may move the memory, cursors and buffers returned by the access
+ * become invalid once the access grows. Slicing is not supported for the same reason. <br>
+ * <b>!! Thread-safety:</b> Elastic accesses are not thread-safe.
+ */
+@SuppressWarnings("unused")
+public final class ElasticIOAccess extends IOAccess {
+
+    private static final Unsafe UNSAFE;
+    private static final long BYTE_ARRAY_BASE_OFFSET;
+
+    static {
+        try {
+            UNSAFE = UnsafeHelper.getUnsafe();
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+
+        BYTE_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
+    }
+
+    /**
+     * Chooses the new capacity of an elastic access
+     */
+    @FunctionalInterface
+    public interface GrowthPolicy {
+
+        /**
+         * Doubles the capacity, starting with at least 64 bytes
+         */
+        GrowthPolicy DOUBLING = (capacity, required) -> {
+            if(capacity > Long.MAX_VALUE / 2) return required;
+            return Math.max(required, Math.max(64L, capacity * 2));
+        };
+
+        /**
+         * Grows the capacity to the next multiple of the given increment
+         */
+        static GrowthPolicy linear(final long increment) {
+            if(increment <= 0) throw new IllegalArgumentException("The increment must be positive.");
+            return (capacity, required) -> (required + increment - 1) / increment * increment;
+        }
+
+        /**
+         * @param capacity the current capacity in bytes
+         * @param required the minimum capacity in bytes
+         * @return the new capacity, at least required
+         */
+        long grow(final long capacity, final long required);
+    }
+
+    static ElasticIOAccess allocate(final long capacity, final GrowthPolicy policy) {
+        if(capacity < 0) throw new IllegalArgumentException("The capacity must not be negative.");
+        return new ElasticIOAccess(new Memory(capacity), policy);
+    }
+
+    private final Memory memory;
+    private final GrowthPolicy policy;
+    private IOPrimitives primitives = IOPrimitives.NATIVE;
+
+    private ElasticIOAccess(final Memory memory, final GrowthPolicy policy) {
+        super(0L, -1L, true, true, true, memory);
+        this.memory = memory;
+        this.policy = policy;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    protected void finalize() {
+        memory.release();
+    }
+
+    /**
+     * @return the number of bytes written, i.e. the index after the last byte written
+     */
+    public long size() {
+        return memory.size;
+    }
+
+    /**
+     * @return the number of bytes allocated
+     */
+    public long capacity() {
+        return memory.capacity;
+    }
+
+    /**
+     * Grows the capacity to at least the given number of bytes, using the growth policy
+     */
+    public void ensureCapacity(final long capacity) {
+        checkOwnership();
+        checkAvailable();
+        if(capacity <= memory.capacity) return;
+
+        final long grown = policy.grow(memory.capacity, capacity);
+        if(grown < capacity) throw new IllegalStateException("The growth policy returned %d bytes, %d bytes are required.".formatted(grown, capacity));
+
+        memory.resize(grown);
+    }
+
+    /**
+     * Shrinks the capacity to the size, freeing unused memory
+     */
+    public void trim() {
+        checkOwnership();
+        checkAvailable();
+        if(memory.capacity > memory.size) memory.resize(memory.size);
+    }
+
+    /**
+     * Discards all bytes after the given size, the index is moved to the size if it lies after it.
+     * The capacity is not changed, use {@link #trim()} to free the memory.
+     */
+    public void truncate(final long size) {
+        checkOwnership();
+        checkAvailable();
+        if(size < 0 || size > memory.size) throw new IndexOutOfBoundsException(size);
+
+        memory.size = size;
+        if(index() > size) setIndex(size);
+    }
+
+    /**
+     * Grows the access so that the given region can be written, bytes between the size and the region are set to 0
+     */
+    private void reserve(final long index, final long length) {
+        if(index < 0) throw new IndexOutOfBoundsException(index);
+
+        final long end = index + length;
+        if(end > memory.capacity) ensureCapacity(end);
+        if(index > memory.size) UNSAFE.setMemory(memory.address + memory.size, index - memory.size, (byte) 0);
+    }
+
+    @Override
+    public long length() {
+        return memory.size;
+    }
+
+    @Override
+    public long remaining() {
+        return memory.size - index();
+    }
+
+    @Override
+    public long available() {
+        checkRead();
+        return remaining();
+    }
+
+    @Override
+    protected void checkReadIndex(final long offset) {
+        checkReadIndex(index(), offset);
+    }
+
+    @Override
+    protected void checkReadIndex(final long index, final long offset) {
+        if(offset < 0) throw new UnsupportedOperationException("Cannot read a negative amount of bytes.");
+        if(index < 0 || index + offset > memory.size) throw new IndexOutOfBoundsException(index + offset);
+    }
+
+    @Override
+    protected void checkWriteIndex(final long offset) {
+        checkWriteIndex(index(), offset);
+    }
+
+    /**
+     * Grows the access instead of failing if the region lies after the end of the access
+     */
+    @Override
+    protected void checkWriteIndex(final long index, final long offset) {
+        if(offset < 0) throw new UnsupportedOperationException("Cannot write a negative amount of bytes.");
+        reserve(index, offset);
+        if(index + offset > memory.size) memory.size = index + offset;
+    }
+
+    @Override
+    public void set(final byte b, final long index) {
+        checkWrite();
+        checkWriteIndex(index, 1);
+        memory.set(b, index);
+    }
+
+    @Override
+    public void set(final byte[] data, final long index, final int off, final int len) {
+        checkWrite();
+        checkWriteIndex(index, len);
+
+        IOStatistics.written(backend(), len);
+        memory.set(data, index, off, len);
+    }
+
+    /**
+     * Reads bytes from the channel into the given region, growing the access if required.
+     * The size only grows by the number of bytes read.
+     */
+    @Override
+    public int readFrom(final ReadableByteChannel channel, final long index, final int length) throws IOException {
+        checkWrite();
+        if(length < 0) throw new UnsupportedOperationException("Cannot write a negative amount of bytes.");
+        reserve(index, length);
+
+        final ByteBuffer buffer = IOScopedMemory.bufferAt(memory.address + index, length);
+        final ByteBuffer target = buffer != null ? buffer: ByteBuffer.allocate(length);
+
+        final int read = channel.read(target);
+        if(read > 0 && buffer == null) memory.set(target.array(), index, 0, read);
+        if(read > 0 && index + read > memory.size) memory.size = index + read;
+
+        return read;
+    }
+
+    @Override
+    public IOCursor cursor(final long index, final long length) {
+        checkReadIndex(index, length);
+        return super.cursor(index, length);
+    }
+
+    @Override
+    public void setByteOrder(final @NotNull ByteOrder order) {
+        super.setByteOrder(order);
+        this.primitives = IOPrimitives.of(order);
+    }
+
+    @Override
+    String backend() {
+        return "elastic";
+    }
+
+    @Override
+    long address() {
+        return memory.address;
+    }
+
+    @Override
+    ByteBuffer buffer(final long index, final int length) {
+        return IOScopedMemory.bufferAt(memory.address + index, length);
+    }
+
+    @Override
+    IOCursor createCursor(final long start, final long limit) {
+        return new IOCursor(null, memory.address, start, limit, true, true);
+    }
+
+    //-------------------------------------------------------------------------------------------
+    // Primitives
+    //-------------------------------------------------------------------------------------------
+
+    private short getShort0(final long index) {
+        return primitives.getShort(memory.address + index);
+    }
+
+    private int getInt0(final long index) {
+        return primitives.getInt(memory.address + index);
+    }
+
+    private long getLong0(final long index) {
+        return primitives.getLong(memory.address + index);
+    }
+
+    private void setShort0(final short value, final long index) {
+        primitives.putShort(memory.address + index, value);
+    }
+
+    private void setInt0(final int value, final long index) {
+        primitives.putInt(memory.address + index, value);
+    }
+
+    private void setLong0(final long value, final long index) {
+        primitives.putLong(memory.address + index, value);
+    }
+
+    /**
+     * Checks the bounds of the next primitive, growing the access for writes, and advances the index
+     * @return the index of the primitive
+     */
+    private long next(final int size, final boolean write) {
+        if(write) {
+            checkWrite();
+            checkWriteIndex(size);
+        } else {
+            checkRead();
+            checkReadIndex(size);
+        }
+
+        return idx(size);
+    }
+
+    private void checkGet(final long index, final int size) {
+        checkRead();
+        checkReadIndex(index, size);
+    }
+
+    private void checkSet(final long index, final int size) {
+        checkWrite();
+        checkWriteIndex(index, size);
+    }
+
+    @Override
+    public short getShort(final long index) {
+        checkGet(index, 2);
+        return getShort0(index);
+    }
+
+    @Override
+    public int getInt(final long index) {
+        checkGet(index, 4);
+        return getInt0(index);
+    }
+
+    @Override
+    public long getLong(final long index) {
+        checkGet(index, 8);
+        return getLong0(index);
+    }
+
+    @Override
+    public float getFloat(final long index) {
+        checkGet(index, 4);
+        return Float.intBitsToFloat(getInt0(index));
+    }
+
+    @Override
+    public double getDouble(final long index) {
+        checkGet(index, 8);
+        return Double.longBitsToDouble(getLong0(index));
+    }
+
+    @Override
+    public void setShort(final short s, final long index) {
+        checkSet(index, 2);
+        setShort0(s, index);
+    }
+
+    @Override
+    public void setInt(final int i, final long index) {
+        checkSet(index, 4);
+        setInt0(i, index);
+    }
+
+    @Override
+    public void setLong(final long l, final long index) {
+        checkSet(index, 8);
+        setLong0(l, index);
+    }
+
+    @Override
+    public void setFloat(final float f, final long index) {
+        checkSet(index, 4);
+        setInt0(Float.floatToRawIntBits(f), index);
+    }
+
+    @Override
+    public void setDouble(final double d, final long index) {
+        checkSet(index, 8);
+        setLong0(Double.doubleToRawLongBits(d), index);
+    }
+
+    @Override
+    public short readShort() {
+        return getShort0(next(2, false));
+    }
+
+    @Override
+    public int readInt() {
+        return getInt0(next(4, false));
+    }
+
+    @Override
+    public long readLong() {
+        return getLong0(next(8, false));
+    }
+
+    @Override
+    public float readFloat() {
+        return Float.intBitsToFloat(getInt0(next(4, false)));
+    }
+
+    @Override
+    public double readDouble() {
+        return Double.longBitsToDouble(getLong0(next(8, false)));
+    }
+
+    @Override
+    public void writeShort(final short s) {
+        setShort0(s, next(2, true));
+    }
+
+    @Override
+    public void writeInt(final int i) {
+        setInt0(i, next(4, true));
+    }
+
+    @Override
+    public void writeLong(final long l) {
+        setLong0(l, next(8, true));
+    }
+
+    @Override
+    public void writeFloat(final float f) {
+        setInt0(Float.floatToRawIntBits(f), next(4, true));
+    }
+
+    @Override
+    public void writeDouble(final double d) {
+        setLong0(Double.doubleToRawLongBits(d), next(8, true));
+    }
+
+    /**
+     * The native memory of an elastic access, bounds are checked by the access
+     */
+    private static final class Memory implements IOAccessible {
+
+        private long address;
+        private long capacity;
+        private long size = 0L;
+        private long position = 0L;
+
+        private Memory(final long capacity) {
+            final IOEvents.Allocation event = IOEvents.allocation();
+            this.address = UNSAFE.allocateMemory(capacity);
+            this.capacity = capacity;
+
+            IOEvents.allocation(event, "elastic", capacity);
+            IOStatistics.allocated("elastic", capacity);
+        }
+
+        private void resize(final long capacity) {
+            final IOEvents.Allocation event = IOEvents.allocation();
+            this.address = UNSAFE.reallocateMemory(address, capacity);
+
+            IOEvents.allocation(event, "elastic", capacity, this.capacity);
+            IOStatistics.freed("elastic", this.capacity);
+            IOStatistics.allocated("elastic", capacity);
+
+            this.capacity = capacity;
+        }
+
+        @Override
+        public String backend() {
+            return "elastic";
+        }
+
+        @Override
+        public ByteBuffer asByteBuffer(final long index, final int length) {
+            return IOScopedMemory.bufferAt(address + index, length);
+        }
+
+        @Override
+        public void setIndex(final long index) {
+            this.position = index;
+        }
+
+        @Override
+        public void skip(final long bytes) {
+            this.position += bytes;
+        }
+
+        @Override
+        public void flush() {
+            throw new UnsupportedOperationException("Flushing not supported");
+        }
+
+        @Override
+        public void release() {
+            if(capacity < 0) return;
+
+            final IOEvents.Free event = IOEvents.free();
+            UNSAFE.freeMemory(address);
+            this.address = 0L;
+
+            IOEvents.free(event, "elastic", capacity);
+            IOStatistics.freed("elastic", capacity);
+            this.capacity = -1L;
+        }
+
+        @Override
+        public byte read() {
+            return get(position++);
+        }
+
+        @Override
+        public byte[] read(final int len) {
+            final byte[] data = get(position, len);
+            position += len;
+            return data;
+        }
+
+        @Override
+        public byte get(final long index) {
+            return UNSAFE.getByte(address + index);
+        }
+
+        @Override
+        public byte[] get(final long index, final int length) {
+            final byte[] data = new byte[length];
+            UNSAFE.copyMemory(null, address + index, data, BYTE_ARRAY_BASE_OFFSET, length);
+            return data;
+        }
+
+        @Override
+        public void write(final byte b) {
+            set(b, position++);
+        }
+
+        @Override
+        public void write(final byte[] data, final int off, final int len) {
+            set(data, position, off, len);
+            position += len;
+        }
+
+        @Override
+        public void set(final byte b, final long index) {
+            UNSAFE.putByte(address + index, b);
+        }
+
+        @Override
+        public void set(final byte[] b, final long index, final int off, final int len) {
+            UNSAFE.copyMemory(b, BYTE_ARRAY_BASE_OFFSET + off, null, address + index, len);
+        }
+
+        @Override
+        public void copyFrom(final IOAccessible accessible, final long index, final long offset, final int length) {
+            set(accessible.get(offset, length), index, 0, length);
+        }
+
+        @Override
+        public void copyFrom(final IOAccessible accessible, final long offset, final int length) {
+            write(accessible.get(offset, length), 0, length);
+        }
+
+        @Override
+        public void copyFrom(final IOAccessible accessible, final int length) {
+            write(accessible.read(length), 0, length);
+        }
+    }
+}
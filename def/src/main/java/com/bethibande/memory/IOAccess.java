@@ -8,22 +8,33 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
 
 /**
  * Reads or writes data, to buffers, streams and more
  */
 @SuppressWarnings("unused")
-public sealed class IOAccess permits NativeIOAccess, UnsafeIOAccess {
+public sealed class IOAccess permits CompositeIOAccess, ElasticIOAccess, InstrumentedIOAccess, NativeIOAccess, UnsafeIOAccess {
 
     private static final byte ZERO = 0;
     private static final byte ONE = 1;
 
+    /**
+     * The default page size of snapshots, see {@link #snapshot()}
+     */
+    public static final int SNAPSHOT_PAGE_SIZE = 64 * 1024;
+
     private static final Unsafe UNSAFE;
     /**
      * Byte offset of the index field within the class in memory
@@ -49,9 +60,11 @@ public sealed class IOAccess permits NativeIOAccess, UnsafeIOAccess {
      * Allocates native, off-heap memory. <br>
      * Using this unsafe buffer is very dangerous and only recommended for experienced people. <br>
      * <b>!! Note:</b> There are no index checks when trying to access the resulting IOAccess.
-     *          There are also no checks preventing you from reading/writing after freeing the IOAccess.
-     *          The IOAccess will be freed, when calling {@link UnsafeIOAccess#free()} or {@link UnsafeIOAccess#close()}
-     *          or during finalization. <br>
+     *          The memory is reference counted, slices and {@link #retain()} acquire additional references,
+     *          {@link #release()}, {@link UnsafeIOAccess#free()} and {@link UnsafeIOAccess#close()} drop them.
+     *          The memory is freed once all references have been released, or during finalization.
+     *          Reading/writing through an access after it has been released throws an {@link IllegalStateException},
+     *          cursors and ByteBuffers created before the release are not checked. <br>
      * <b>!! Thread-safety:</b> This IOAccess implementation was not made with considerations to thread-safety.
      *                   Use multi-threading at your own risk.
      * @param size the mount of bytes to allocate
@@ -61,6 +74,23 @@ public sealed class IOAccess permits NativeIOAccess, UnsafeIOAccess {
         return UnsafeIOAccess.allocate(size);
     }
 
+    /**
+     * Allocates an off-heap access growing on write, doubling its capacity, see {@link ElasticIOAccess}
+     * @param capacity the initial capacity in bytes
+     */
+    public static ElasticIOAccess elastic(final long capacity) {
+        return ElasticIOAccess.allocate(capacity, ElasticIOAccess.GrowthPolicy.DOUBLING);
+    }
+
+    /**
+     * Allocates an off-heap access growing on write, see {@link ElasticIOAccess}
+     * @param capacity the initial capacity in bytes
+     * @param policy chooses the new capacity once the access grows
+     */
+    public static ElasticIOAccess elastic(final long capacity, final ElasticIOAccess.GrowthPolicy policy) {
+        return ElasticIOAccess.allocate(capacity, policy);
+    }
+
     /**
      * Maps the given file into memory, the given path must be a file.
      * All changes made to the mapped file in memory, will be written to the underlying file.
@@ -78,17 +108,40 @@ public sealed class IOAccess permits NativeIOAccess, UnsafeIOAccess {
                                final long offset,
                                final long size,
                                final FileChannel.MapMode mode) throws IOException {
+        return map(file, offset, size, mode, false);
+    }
+
+    /**
+     * Maps the given file into memory, see {@link #map(Path, long, long, FileChannel.MapMode)}.
+     * If the file is smaller than offset + size and the mode is {@link FileChannel.MapMode#READ_WRITE},
+     * the file will be extended.
+     * @param shared if true, the mapping may be accessed by any thread and the resulting access is not owned by a thread.
+     *               Otherwise, the access is owned by, and the mapping confined to, the calling thread.
+     */
+    public static IOAccess map(final Path file,
+                               final long offset,
+                               final long size,
+                               final FileChannel.MapMode mode,
+                               final boolean shared) throws IOException {
         return new NativeIOAccess(
                 0,
                 size,
                 true,
                 mode == FileChannel.MapMode.PRIVATE || mode == FileChannel.MapMode.READ_WRITE,
                 true,
-                IOScopedMemory.mapFile(file, offset, size, mode),
-                true
+                IOScopedMemory.mapFile(file, offset, size, mode, shared),
+                !shared
         );
     }
 
+    /**
+     * Creates an indexed access concatenating the given accesses without copying them, see {@link CompositeIOAccess}
+     * @param components indexed accesses of known length, more components may be appended later
+     */
+    public static CompositeIOAccess composite(final IOAccess... components) {
+        return CompositeIOAccess.of(components);
+    }
+
     /**
      * This method will create an access reading/writing at the given memory address. <br>
      * !! Note: Do not use this unless you know what you are doing, using this may cause page faults or corrupt memory.
@@ -183,6 +236,51 @@ public sealed class IOAccess permits NativeIOAccess, UnsafeIOAccess {
         return new IOAccess(0, -1, true, write, read, new IOFile(file, write, read));
     }
 
+    /**
+     * Creates a file backed buffer with the given access and durability
+     * @param file the file backing the buffer
+     * @param read grants read access
+     * @param write grants write access
+     * @param durability defines when writes are synced to the storage device,
+     *                   use {@link #force()} to sync all changes explicitly
+     */
+    public static IOAccess randomAccess(final File file,
+                                        final boolean write,
+                                        final boolean read,
+                                        final IODurability durability) {
+        return randomAccess(file, write, read, durability, 0);
+    }
+
+    /**
+     * Creates a file backed buffer with the given access and durability, writes are collected in a write-back buffer.
+     * Sequential and nearby writes are coalesced into a single write, the buffered data is written to the file
+     * when calling {@link #flush()}, {@link #force()} or {@link #release()}, or once a write doesn't fit the buffer.
+     * @param file the file backing the buffer
+     * @param read grants read access
+     * @param write grants write access
+     * @param durability defines when writes are synced to the storage device
+     * @param writeBufferSize the size of the write-back buffer in bytes, 0 disables the buffer
+     */
+    public static IOAccess randomAccess(final File file,
+                                        final boolean write,
+                                        final boolean read,
+                                        final IODurability durability,
+                                        final int writeBufferSize) {
+        return new IOAccess(0, -1, true, write, read, new IOFile(file, write, read, durability, writeBufferSize));
+    }
+
+    /**
+     * Creates a file backed buffer with read and write access. Reads and writes go through an off-heap page cache
+     * instead of accessing the file directly, see {@link IOPageCache}.
+     * Changes are written to the file when pages are evicted, when flushing or when releasing the access.
+     * @param file the file backing the buffer
+     * @param pageSize the size of a cached page in bytes
+     * @param pageCount the number of pages held in memory
+     */
+    public static IOAccess randomAccess(final File file, final int pageSize, final int pageCount) throws IOException {
+        return IOPageCache.open(file.toPath(), pageSize, pageCount, true).access();
+    }
+
     /**
      * Creates a stream backed access
      */
@@ -219,12 +317,113 @@ public sealed class IOAccess permits NativeIOAccess, UnsafeIOAccess {
                 0,
                 -1,
                 false,
-                in != null,
                 out != null,
+                in != null,
                 new IOStream(out, in)
         );
     }
 
+    /**
+     * Creates an access reading/writing the remaining bytes of the given buffer, without copying.
+     * Heap and direct buffers are supported, index 0 of the access is the current position of the buffer.
+     * The access is read-only if the buffer is read-only. The access is owned by the calling thread.
+     * Releasing the access only invalidates the access, the buffer is not freed.
+     * @param buffer the buffer to wrap
+     */
+    public static IOAccess wrap(final ByteBuffer buffer) {
+        final IOAccess access = new NativeIOAccess(
+                0,
+                buffer.remaining(),
+                true,
+                !buffer.isReadOnly(),
+                true,
+                IOScopedMemory.ofByteBuffer(buffer),
+                true
+        );
+        access.setByteOrder(buffer.order());
+
+        return access;
+    }
+
+    /**
+     * Writes the remaining bytes of all given accesses to the channel using a single gathering write.
+     * Memory backed accesses are written directly, without copying. The index of every access is advanced
+     * by the number of bytes written from it, allowing the write to be resumed if the channel wrote fewer bytes.
+     * @param channel the channel to write to
+     * @param accesses the indexed accesses to write, in order
+     * @return the total number of bytes written
+     */
+    public static long gather(final GatheringByteChannel channel, final IOAccess... accesses) throws IOException {
+        final ByteBuffer[] buffers = new ByteBuffer[accesses.length];
+        for(int i = 0; i < accesses.length; i++) {
+            final IOAccess access = accesses[i];
+            final int remaining = remainingInt(access);
+            access.checkRead();
+
+            final ByteBuffer buffer = access.buffer(access.index(), remaining);
+            buffers[i] = buffer != null ? buffer: ByteBuffer.wrap(access.get(access.index(), remaining));
+        }
+
+        final long written = channel.write(buffers);
+
+        for(int i = 0; i < accesses.length; i++) {
+            if(buffers[i].position() > 0) accesses[i].setIndex(accesses[i].index() + buffers[i].position());
+        }
+
+        return written;
+    }
+
+    public static long gather(final GatheringByteChannel channel, final List<IOAccess> accesses) throws IOException {
+        return gather(channel, accesses.toArray(IOAccess[]::new));
+    }
+
+    /**
+     * Reads bytes from the channel into the remaining bytes of all given accesses using a single scattering read.
+     * Memory backed accesses are read into directly, without copying. The index of every access is advanced
+     * by the number of bytes read into it.
+     * @param channel the channel to read from
+     * @param accesses the indexed accesses to read into, in order
+     * @return the total number of bytes read, or -1 if the channel has reached end-of-stream
+     */
+    public static long scatter(final ScatteringByteChannel channel, final IOAccess... accesses) throws IOException {
+        final ByteBuffer[] buffers = new ByteBuffer[accesses.length];
+        final boolean[] copy = new boolean[accesses.length];
+        for(int i = 0; i < accesses.length; i++) {
+            final IOAccess access = accesses[i];
+            final int remaining = remainingInt(access);
+            access.checkWrite();
+
+            final ByteBuffer buffer = access.writableBuffer(access.index(), remaining);
+            copy[i] = buffer == null;
+            buffers[i] = buffer != null ? buffer: ByteBuffer.allocate(remaining);
+        }
+
+        final long read = channel.read(buffers);
+
+        for(int i = 0; i < accesses.length; i++) {
+            final int position = buffers[i].position();
+            if(position == 0) continue;
+
+            final IOAccess access = accesses[i];
+            if(copy[i]) access.set(buffers[i].array(), access.index(), 0, position);
+            access.setIndex(access.index() + position);
+        }
+
+        return read;
+    }
+
+    public static long scatter(final ScatteringByteChannel channel, final List<IOAccess> accesses) throws IOException {
+        return scatter(channel, accesses.toArray(IOAccess[]::new));
+    }
+
+    private static int remainingInt(final IOAccess access) {
+        access.checkIndexed();
+        if(access.length() < 0) throw new UnsupportedOperationException("Accesses without a known length cannot be used for scatter/gather operations.");
+        if(access.remaining() > Integer.MAX_VALUE) throw new UnsupportedOperationException("The remaining bytes of an access must not exceed Integer.MAX_VALUE.");
+
+        return (int) access.remaining();
+    }
+
     /**
      * Creates a byte array backed access
      * @param size the size of the byte array
@@ -233,6 +432,14 @@ public sealed class IOAccess permits NativeIOAccess, UnsafeIOAccess {
         return allocate(size, true, true, true);
     }
 
+    /**
+     * Decorates the given access, recording the latency of all operations in histograms, see {@link InstrumentedIOAccess}.
+     * The decorated access should no longer be used directly.
+     */
+    public static InstrumentedIOAccess instrumented(final IOAccess access) {
+        return new InstrumentedIOAccess(access);
+    }
+
     protected static IOAccess from(final IOAccess context, final IOScopedMemory wrap, final long length) {
         return new NativeIOAccess(
                 0,
@@ -286,6 +493,13 @@ public sealed class IOAccess permits NativeIOAccess, UnsafeIOAccess {
 
     private Long owner = null;
 
+    private long markIndex = -1L;
+
+    private long writeBitBuffer = 0L;
+    private int writeBitCount = 0;
+    private long readBitBuffer = 0L;
+    private int readBitCount = 0;
+
     protected IOAccess(final long index,
                        final long length,
                        final boolean isIndexed,
@@ -406,9 +620,13 @@ public sealed class IOAccess permits NativeIOAccess, UnsafeIOAccess {
     public byte read() {
         checkRead();
         checkReadIndex(1);
-        idx(1);
 
-        return accessible.read();
+        if(!isIndexed) {
+            idx(1);
+            return accessible.read();
+        }
+
+        return accessible.get(idx(1));
     }
 
     public short readUByte() {
@@ -419,6 +637,12 @@ public sealed class IOAccess permits NativeIOAccess, UnsafeIOAccess {
         checkRead();
         checkReadIndex(length);
 
+        IOStatistics.read(backend(), length);
+        if(!isIndexed) {
+            idx(length);
+            return accessible.read(length);
+        }
+
         return accessible.get(idx(length), length);
     }
 
@@ -439,12 +663,19 @@ public sealed class IOAccess permits NativeIOAccess, UnsafeIOAccess {
         checkIndexed();
         checkReadIndex(index, length);
 
+        IOStatistics.read(backend(), length);
         return accessible.get(index, length);
     }
 
     public void write(final byte b) {
         checkWrite();
-        checkWriteIndex(b);
+        checkWriteIndex(1);
+
+        if(!isIndexed) {
+            idx(1);
+            accessible.write(b);
+            return;
+        }
 
         accessible.set(b, idx(1));
     }
@@ -461,6 +692,13 @@ public sealed class IOAccess permits NativeIOAccess, UnsafeIOAccess {
         checkWrite();
         checkWriteIndex(length);
 
+        IOStatistics.written(backend(), length);
+        if(!isIndexed) {
+            idx(length);
+            accessible.write(data, offset, length);
+            return;
+        }
+
         accessible.set(data, idx(length), offset, length);
     }
 
@@ -473,6 +711,7 @@ public sealed class IOAccess permits NativeIOAccess, UnsafeIOAccess {
         checkIndexed();
         //checkWriteIndex(index, len);
 
+        IOStatistics.written(backend(), len);
         accessible.set(data, index, off, len);
     }
 
@@ -538,7 +777,7 @@ public sealed class IOAccess permits NativeIOAccess, UnsafeIOAccess {
     }
 
     public int getInt(final long index) {
-        return IOHelper.bytesToInt(get(index, 2), order);
+        return IOHelper.bytesToInt(get(index, 4), order);
     }
 
     public long getUInt(final long index) {
@@ -698,6 +937,71 @@ public sealed class IOAccess permits NativeIOAccess, UnsafeIOAccess {
         );
     }
 
+    /**
+     * Writes the lowest n bits of the given value, most significant bit first. <br>
+     * Bits are collected until a whole byte is complete, which is then written at the current index.
+     * Call {@link #flushBits()} to write a partially filled byte before writing bytes or releasing the access.
+     * @param n the number of bits, within [0, 64]
+     */
+    public void writeBits(final long value, final int n) {
+        if(n < 0 || n > 64) throw new IllegalArgumentException("n must be within [0, 64].");
+        if(n == 0) return;
+        if(n > 56) {
+            writeBits(value >>> 32, n - 32);
+            writeBits(value, 32);
+            return;
+        }
+
+        writeBitBuffer = (writeBitBuffer << n) | (value & (-1L >>> (64 - n)));
+        writeBitCount += n;
+        while(writeBitCount >= 8) {
+            writeBitCount -= 8;
+            write((byte) (writeBitBuffer >>> writeBitCount));
+        }
+    }
+
+    /**
+     * Writes a partially filled byte of {@link #writeBits(long, int)}, the remaining bits are set to 0
+     */
+    public void flushBits() {
+        if(writeBitCount == 0) return;
+
+        write((byte) (writeBitBuffer << (8 - writeBitCount)));
+        writeBitBuffer = 0L;
+        writeBitCount = 0;
+    }
+
+    /**
+     * Reads n bits as an unsigned value, most significant bit first. <br>
+     * Whole bytes are read at the current index, bits of a partially consumed byte are kept for the next call.
+     * Call {@link #alignBits()} to discard them before reading bytes.
+     * @param n the number of bits, within [0, 64]
+     */
+    public long readBits(final int n) {
+        if(n < 0 || n > 64) throw new IllegalArgumentException("n must be within [0, 64].");
+        if(n == 0) return 0L;
+        if(n > 56) {
+            final long high = readBits(n - 32);
+            return high << 32 | readBits(32);
+        }
+
+        while(readBitCount < n) {
+            readBitBuffer = (readBitBuffer << 8) | (read() & 0xFFL);
+            readBitCount += 8;
+        }
+
+        readBitCount -= n;
+        return (readBitBuffer >>> readBitCount) & (-1L >>> (64 - n));
+    }
+
+    /**
+     * Discards the remaining bits of a partially consumed byte of {@link #readBits(int)}
+     */
+    public void alignBits() {
+        readBitBuffer = 0L;
+        readBitCount = 0;
+    }
+
     public void setUUID(final UUID id, final long index) {
         setLong(id.getMostSignificantBits(), index);
         setLong(id.getLeastSignificantBits(), index + 8);
@@ -711,23 +1015,138 @@ public sealed class IOAccess permits NativeIOAccess, UnsafeIOAccess {
     }
 
 
+    /**
+     * Returns the given number of bytes at the given offset from the current index, without advancing the index.
+     * Streams buffer the bytes until they are read.
+     * @throws IndexOutOfBoundsException if the bytes lie beyond the end of the access or stream
+     */
+    public byte[] peek(final long offset, final int length) {
+        checkRead();
+        checkReadIndex(offset + length);
+
+        if(isIndexed) return get(index + offset, length);
+        return accessible.peek(offset, length);
+    }
+
+    public byte peek() {
+        return peek(0);
+    }
+
+    public byte peek(final long offset) {
+        return peek(offset, 1)[0];
+    }
+
+    public short peekShort() {
+        return peekShort(0);
+    }
+
+    public short peekShort(final long offset) {
+        return IOHelper.bytesToShort(peek(offset, 2), order);
+    }
+
+    public int peekInt() {
+        return peekInt(0);
+    }
+
+    public int peekInt(final long offset) {
+        return IOHelper.bytesToInt(peek(offset, 4), order);
+    }
+
+    public long peekLong() {
+        return peekLong(0);
+    }
+
+    public long peekLong(final long offset) {
+        return IOHelper.bytesToLong(peek(offset, 8), order);
+    }
+
+    /**
+     * Returns the number of bytes which can be read without blocking, streams include already buffered bytes
+     * @return the number of bytes, or -1 if the access is indexed and its length is unknown
+     */
+    public long available() {
+        checkRead();
+        if(isIndexed) return length() < 0 ? -1: remaining();
+
+        final long available = accessible.available();
+        return length() < 0 ? available: Math.min(available, remaining());
+    }
+
+    /**
+     * Blocks until the given number of bytes can be read, streams read and buffer the bytes
+     * without advancing the index. Parsers may use this to wait for a complete frame.
+     * @return false if the access or stream ends before the given number of bytes
+     */
+    public boolean ensure(final long bytes) {
+        checkRead();
+        if(length() >= 0 && bytes > remaining()) return false;
+        if(isIndexed) return true;
+
+        return accessible.ensure(bytes);
+    }
+
+    /**
+     * Marks the current index, {@link #reset()} returns to the mark.
+     * Streams retain the bytes read after the mark, the mark is invalidated once more than readLimit bytes have been read.
+     * @param readLimit the maximum number of bytes read before the mark is invalidated, ignored by indexed accesses
+     */
+    public void mark(final int readLimit) {
+        checkRead();
+        if(isIndexed) {
+            this.markIndex = index;
+            return;
+        }
+
+        accessible.mark(readLimit);
+    }
+
+    /**
+     * Returns to the last mark
+     * @throws IllegalStateException if there is no mark or the mark has been invalidated
+     */
+    public void reset() {
+        checkRead();
+        if(isIndexed) {
+            if(markIndex < 0) throw new IllegalStateException("The access has not been marked.");
+            setIndex(markIndex);
+            return;
+        }
+
+        idx(-accessible.reset());
+    }
+
     public void copyFrom(final IOAccess access, final long index, final long offset, final int length) {
         checkWrite();
         checkWriteIndex(index, length);
         checkIndexed();
-        accessible.copyFrom(access.accessible, index, offset, length);
+
+        IOStatistics.read(access.backend(), length);
+        IOStatistics.written(backend(), length);
+        final IOEvents.Bulk event = IOEvents.bulk(length);
+        accessible.copyFrom(access.accessible(), index, offset, length);
+        IOEvents.bulk(event, "copyFrom", backend(), length);
     }
 
     public void copyFrom(final IOAccess access, final long offset, final int length) {
         checkWrite();
         checkWriteIndex(index, length);
-        accessible.copyFrom(access.accessible, offset, length);
+
+        IOStatistics.read(access.backend(), length);
+        IOStatistics.written(backend(), length);
+        final IOEvents.Bulk event = IOEvents.bulk(length);
+        accessible.copyFrom(access.accessible(), offset, length);
+        IOEvents.bulk(event, "copyFrom", backend(), length);
     }
 
     public void copyFrom(final IOAccess access, final int length) {
         checkWrite();
         checkWriteIndex(index, length);
-        accessible.copyFrom(access.accessible, length);
+
+        IOStatistics.read(access.backend(), length);
+        IOStatistics.written(backend(), length);
+        final IOEvents.Bulk event = IOEvents.bulk(length);
+        accessible.copyFrom(access.accessible(), length);
+        IOEvents.bulk(event, "copyFrom", backend(), length);
     }
 
     /**
@@ -749,12 +1168,140 @@ public sealed class IOAccess permits NativeIOAccess, UnsafeIOAccess {
         checkSlicing();
         checkReadIndex(index, length);
 
+        IOStatistics.slice();
         return IOAccess.from(this, accessible.slice(index, length), length);
     }
 
+    /**
+     * Creates a cursor reading/writing the given region of the access. Ownership, permissions and the region
+     * are validated once, the cursor itself only checks whether accesses lie within the region.
+     * The cursor uses the byte order of the access, see {@link IOCursor}.
+     * @param index the first index of the region
+     * @param length the length of the region in bytes
+     * @throws UnsupportedOperationException if the access is not backed by memory
+     */
+    public IOCursor cursor(final long index, final long length) {
+        checkOwnership();
+        checkIndexed();
+        if(isReleased()) throw new IllegalStateException("IOAccess has already been released.");
+        if(index < 0 || length < 0) throw new IndexOutOfBoundsException("Region must not be negative.");
+        if(length() >= 0 && index + length > length()) throw new IndexOutOfBoundsException(index + length);
+
+        return createCursor(index, index + length).withByteOrder(order);
+    }
+
+    /**
+     * Creates a native byte order cursor for the given, already validated region
+     */
+    IOCursor createCursor(final long start, final long limit) {
+        if(accessible instanceof IOBuffer buffer) {
+            return new IOCursor(buffer.array(), IOCursor.BYTE_ARRAY_BASE_OFFSET, start, limit, canRead, canWrite);
+        }
+
+        throw new UnsupportedOperationException("The underlying access doesn't support cursors.");
+    }
+
+    /**
+     * Returns a view of the entire access as a {@link ByteBuffer}, see {@link #asByteBuffer(long, int)}
+     */
+    public ByteBuffer asByteBuffer() {
+        final long length = length();
+        if(length > Integer.MAX_VALUE) throw new UnsupportedOperationException("The access is too large to be viewed as a ByteBuffer.");
+        return asByteBuffer(0, (int) length);
+    }
+
+    /**
+     * Returns a view of the given region as a {@link ByteBuffer}, without copying. Changes made to the buffer
+     * are visible to the access and vice versa. The buffer uses the byte order of the access and
+     * is read-only if the access has no write access. Writable buffers prevent snapshots, see {@link #snapshot(int)}. <br>
+     * <b>!! Note:</b> The buffer must not be used after the access has been released.
+     * Buffers of off-heap memory are created using the foreign memory API and require native access to be enabled,
+     * see <code>--enable-native-access</code>. Other methods copy the memory if native access is not enabled.
+     * @throws UnsupportedOperationException if the access is not backed by memory, e.g. streams or files,
+     * or if native access is not enabled
+     */
+    public ByteBuffer asByteBuffer(final long index, final int length) {
+        checkRead();
+        checkIndexed();
+        checkReadIndex(index, length);
+
+        final ByteBuffer buffer = canWrite ? sharedBuffer(index, length): buffer(index, length);
+        if(buffer == null) {
+            throw new UnsupportedOperationException(IOScopedMemory.isNativeAccessEnabled()
+                    ? "The underlying access cannot be viewed as a ByteBuffer."
+                    : "The underlying access cannot be viewed as a ByteBuffer, off-heap memory requires --enable-native-access.");
+        }
+
+        buffer.order(order);
+        return canWrite ? buffer: buffer.asReadOnlyBuffer().order(order);
+    }
+
+    /**
+     * Reads bytes from the channel into the given region of the access. Memory backed accesses are read into
+     * directly, without an intermediate array.
+     * @param channel the channel to read from
+     * @param index the index to store the first byte at
+     * @param length the maximum number of bytes to read
+     * @return the number of bytes read, possibly zero, or -1 if the channel has reached end-of-stream
+     */
+    public int readFrom(final ReadableByteChannel channel, final long index, final int length) throws IOException {
+        checkWrite();
+        checkIndexed();
+        checkWriteIndex(index, length);
+
+        final ByteBuffer buffer = writableBuffer(index, length);
+        if(buffer != null) return channel.read(buffer);
+
+        final ByteBuffer heap = ByteBuffer.allocate(length);
+        final int read = channel.read(heap);
+        if(read > 0) set(heap.array(), index, 0, read);
+
+        return read;
+    }
+
+    /**
+     * Reads bytes from the channel, starting at the current index. The index is advanced by the number of bytes read.
+     * See {@link #readFrom(ReadableByteChannel, long, int)}
+     */
+    public int readFrom(final ReadableByteChannel channel, final int length) throws IOException {
+        final int read = readFrom(channel, index, length);
+        if(read > 0) setIndex(index + read);
+
+        return read;
+    }
+
+    /**
+     * Writes bytes from the given region of the access to the channel. Memory backed accesses are written directly,
+     * without an intermediate array. Non-blocking channels may write fewer bytes than requested.
+     * @param channel the channel to write to
+     * @param index the index of the first byte to write
+     * @param length the number of bytes to write
+     * @return the number of bytes written
+     */
+    public int writeTo(final WritableByteChannel channel, final long index, final int length) throws IOException {
+        checkRead();
+        checkIndexed();
+        checkReadIndex(index, length);
+
+        final ByteBuffer buffer = buffer(index, length);
+        return channel.write(buffer != null ? buffer: ByteBuffer.wrap(get(index, length)));
+    }
+
+    /**
+     * Writes bytes to the channel, starting at the current index. The index is advanced by the number of bytes written.
+     * See {@link #writeTo(WritableByteChannel, long, int)}
+     */
+    public int writeTo(final WritableByteChannel channel, final int length) throws IOException {
+        final int written = writeTo(channel, index, length);
+        if(written > 0) setIndex(index + written);
+
+        return written;
+    }
+
     public void skip(final long bytes) {
         checkRead();
         checkReadIndex((int)bytes);
+        idx(bytes);
         accessible.skip(bytes);
     }
 
@@ -763,6 +1310,82 @@ public sealed class IOAccess permits NativeIOAccess, UnsafeIOAccess {
         accessible.flush();
     }
 
+    /**
+     * Writes all changes made to the access to the storage device backing it, e.g. a memory mapped file.
+     * This blocks until all changes have been written.
+     * @throws UnsupportedOperationException if the access isn't backed by a storage device
+     */
+    public void force() {
+        checkOwnership();
+        checkAvailable();
+        accessible.force();
+    }
+
+    /**
+     * Writes changes made within the given region to the storage device backing the access,
+     * see {@link #force()}
+     */
+    public void force(final long index, final long length) {
+        checkOwnership();
+        checkAvailable();
+        checkIndexed();
+        checkReadIndex(index, length);
+        accessible.force(index, length);
+    }
+
+    /**
+     * Loads the content of a memory mapped file into physical memory, this blocks until all pages have been loaded.
+     * Subsequent reads don't cause page faults unless the pages are evicted by the operating system.
+     * @throws UnsupportedOperationException if the access isn't a memory mapped file
+     */
+    public void load() {
+        load(0, length());
+    }
+
+    /**
+     * Loads the given region of a memory mapped file into physical memory, see {@link #load()}
+     */
+    public void load(final long index, final long length) {
+        checkOwnership();
+        checkAvailable();
+        checkIndexed();
+        checkReadIndex(index, length);
+        accessible.load(index, length);
+    }
+
+    /**
+     * @return whether the content of a memory mapped file is likely resident in physical memory
+     * @throws UnsupportedOperationException if the access isn't a memory mapped file
+     */
+    public boolean isLoaded() {
+        return isLoaded(0, length());
+    }
+
+    public boolean isLoaded(final long index, final long length) {
+        checkOwnership();
+        checkAvailable();
+        checkIndexed();
+        checkReadIndex(index, length);
+        return accessible.isLoaded(index, length);
+    }
+
+    /**
+     * Hints the operating system that the content of a memory mapped file is no longer needed in physical memory,
+     * subsequent reads may cause page faults. Unwritten changes should be forced before.
+     * @throws UnsupportedOperationException if the access isn't a memory mapped file
+     */
+    public void unload() {
+        unload(0, length());
+    }
+
+    public void unload(final long index, final long length) {
+        checkOwnership();
+        checkAvailable();
+        checkIndexed();
+        checkReadIndex(index, length);
+        accessible.unload(index, length);
+    }
+
     /**
      * Releases memory allocated by the access
      */
@@ -772,6 +1395,51 @@ public sealed class IOAccess permits NativeIOAccess, UnsafeIOAccess {
         released = true;
     }
 
+    /**
+     * Acquires an additional reference to the memory of the access, every reference must be released using {@link #release()}.
+     * Only supported by accesses created using {@link #unsafe(long)} and their slices, which share a single reference count.
+     * @return this access
+     */
+    public IOAccess retain() {
+        throw new UnsupportedOperationException("The access is not reference counted.");
+    }
+
+    /**
+     * @return the number of references to the memory of the access, 0 once the access has been released
+     */
+    public int referenceCount() {
+        return isReleased() ? 0: 1;
+    }
+
+    /**
+     * @return whether the access holds its own reference to reference counted memory, see {@link #retain()}
+     */
+    boolean isReferenceCounted() {
+        return false;
+    }
+
+    /**
+     * Creates a read-only snapshot of the access using copy-on-write pages of {@link #SNAPSHOT_PAGE_SIZE} bytes,
+     * see {@link #snapshot(int)}
+     */
+    public IOAccess snapshot() {
+        return snapshot(SNAPSHOT_PAGE_SIZE);
+    }
+
+    /**
+     * Creates a read-only, point-in-time view of the access without copying it. The access may be written while the
+     * snapshot is in use, pages are copied once before they are modified for the first time.
+     * The snapshot must be released once it is no longer needed, releasing it frees the copied pages.
+     * Only supported by accesses created using {@link #unsafe(long)} and their slices.
+     * Writes through writable {@link ByteBuffer} views of the memory cannot be tracked,
+     * the memory can no longer be snapshotted once such a view has been created.
+     * @param pageSize the size of a copied page in bytes, must be a power of two
+     * @throws IllegalStateException if a writable {@link ByteBuffer} view of the memory has been created
+     */
+    public IOAccess snapshot(final int pageSize) {
+        throw new UnsupportedOperationException("The access does not support snapshots.");
+    }
+
     /**
      * Fills the access with 0, starts from the current index.
      * The new index will be the end of the access.
@@ -780,12 +1448,17 @@ public sealed class IOAccess permits NativeIOAccess, UnsafeIOAccess {
         checkWrite();
         checkIndexed();
 
+        final long size = remaining();
+        final IOEvents.Bulk event = IOEvents.bulk(size);
+
         final byte[] buffer = new byte[(int) Math.min(Integer.MAX_VALUE, remaining())];
         Arrays.fill(buffer, b);
         while(remaining() > 0) {
             final int write = (int) Math.min(Integer.MAX_VALUE, remaining());
             write(buffer, 0, write);
         }
+
+        IOEvents.bulk(event, "fill", backend(), size);
     }
 
     /**
@@ -819,7 +1492,7 @@ public sealed class IOAccess permits NativeIOAccess, UnsafeIOAccess {
         checkOwnership();
         checkAvailable();
         this.order = order;
-        this.accessible.setByteOrder(order);
+        if(this.accessible != null) this.accessible.setByteOrder(order);
     }
 
     /**
@@ -842,7 +1515,7 @@ public sealed class IOAccess permits NativeIOAccess, UnsafeIOAccess {
         checkIndexed();
         checkOwnership();
         this.index = index;
-        this.accessible.setIndex(index);
+        if(this.accessible != null) this.accessible.setIndex(index);
     }
 
     /**
@@ -883,4 +1556,45 @@ public sealed class IOAccess permits NativeIOAccess, UnsafeIOAccess {
     IOAccessible accessible() {
         return accessible;
     }
+
+    /**
+     * @return the name of the backend, used by events and metrics
+     */
+    String backend() {
+        return accessible.backend();
+    }
+
+    /**
+     * The caller may retain the address and write through it, accesses supporting snapshots can't track these writes.
+     * @return the raw address of the first byte of the access, or -1 if the access is not backed by native memory
+     */
+    long address() {
+        return -1L;
+    }
+
+    /**
+     * Returns a {@link ByteBuffer} view of the given region, sharing the memory of this access,
+     * or null if the access cannot be viewed as a buffer. No ownership, permission or bounds checks are performed.
+     * The buffer is only read from, use {@link #writableBuffer(long, int)} or {@link #sharedBuffer(long, int)}
+     * to modify the region.
+     */
+    ByteBuffer buffer(final long index, final int length) {
+        return accessible.asByteBuffer(index, length);
+    }
+
+    /**
+     * Returns a view of the given region like {@link #buffer(long, int)}, the region is modified through the buffer
+     * before the caller returns. Accesses supporting snapshots preserve the region before returning the buffer.
+     */
+    ByteBuffer writableBuffer(final long index, final int length) {
+        return buffer(index, length);
+    }
+
+    /**
+     * Returns a view of the given region like {@link #buffer(long, int)}, the buffer is retained by the caller
+     * and may be written to at any time. Accesses supporting snapshots can't track these writes.
+     */
+    ByteBuffer sharedBuffer(final long index, final int length) {
+        return buffer(index, length);
+    }
 }
@@ -0,0 +1,288 @@
+package com.bethibande.memory;
+
+import sun.misc.Unsafe;
+
+/**
+ * A fixed-size set of bits stored in native memory, similar to {@link java.util.BitSet}. <br>
+ * Bits are stored in native-order longs, bit i is stored in word i / 64 at bit position i % 64.
+ * The words may be placed in any region backed by native memory, e.g. {@link IOAccess#unsafe(long)},
+ * {@link IOAccess#scopedMemory(long)} or a shared memory mapped file to share the bit set with other processes. <br>
+ * <b>!! Note:</b> the bit set accesses the region directly, the region must not be released while the bit set is in use. <br>
+ * <b>!! Thread-safety:</b> Only {@link #testAndSet(long)} and {@link #testAndClear(long)} are atomic,
+ * all other methods are not thread-safe.
+ */
+@SuppressWarnings("unused")
+public class IOBitSet implements AutoCloseable {
+
+    private static final Unsafe UNSAFE;
+
+    static {
+        try {
+            UNSAFE = UnsafeHelper.getUnsafe();
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return the number of bytes required to store the given number of bits
+     */
+    public static long bytes(final long bits) {
+        if(bits < 0) throw new IllegalArgumentException("The number of bits must not be negative.");
+        return ((bits + 63) >>> 6) << 3;
+    }
+
+    /**
+     * Allocates a bit set in a new off-heap region, which is freed when closing the bit set. All bits are cleared.
+     * @param bits the number of bits
+     */
+    public static IOBitSet allocate(final long bits) {
+        final UnsafeIOAccess region = UnsafeIOAccess.allocate(bytes(bits) + 8);
+        final long offset = (8 - region.address() % 8) % 8;
+
+        final IOBitSet set = new IOBitSet(region, offset, bits, true);
+        set.clear();
+        return set;
+    }
+
+    /**
+     * Creates a bit set using the words at the given offset of the given region, the bits are not cleared.
+     * @param region a region backed by native memory
+     * @param offset the offset of the first word, the address of the word must be aligned to 8 bytes
+     * @param bits the number of bits, the region must provide at least {@link #bytes(long)} bytes
+     */
+    public static IOBitSet over(final IOAccess region, final long offset, final long bits) {
+        return new IOBitSet(region, offset, bits, false);
+    }
+
+    private final IOAccess region;
+    private final long base;
+    private final long bits;
+    private final long words;
+    private final boolean owned;
+
+    private IOBitSet(final IOAccess region, final long offset, final long bits, final boolean owned) {
+        region.checkWrite();
+        region.checkRead();
+        region.checkIndexed();
+        region.checkWriteIndex(offset, bytes(bits));
+
+        final long address = region.address();
+        if(address < 0) throw new IllegalArgumentException("The region must be backed by native memory.");
+        if((address + offset) % 8 != 0) throw new IllegalArgumentException("The words must be aligned to 8 bytes.");
+
+        this.region = region;
+        this.base = address + offset;
+        this.bits = bits;
+        this.words = (bits + 63) >>> 6;
+        this.owned = owned;
+    }
+
+    private void checkIndex(final long index) {
+        if(index < 0 || index >= bits) throw new IndexOutOfBoundsException(index);
+    }
+
+    private long word(final long word) {
+        return UNSAFE.getLong(base + (word << 3));
+    }
+
+    private void word(final long word, final long value) {
+        UNSAFE.putLong(base + (word << 3), value);
+    }
+
+    /**
+     * @return the bits of the last word which are part of the set
+     */
+    private long lastWordMask() {
+        return -1L >>> -bits;
+    }
+
+    /**
+     * @return the number of bits
+     */
+    public long size() {
+        return bits;
+    }
+
+    public boolean get(final long index) {
+        checkIndex(index);
+        return (word(index >>> 6) & (1L << index)) != 0;
+    }
+
+    public void set(final long index) {
+        checkIndex(index);
+        final long word = index >>> 6;
+        word(word, word(word) | (1L << index));
+    }
+
+    public void set(final long index, final boolean value) {
+        if(value) {
+            set(index);
+        } else {
+            clear(index);
+        }
+    }
+
+    public void clear(final long index) {
+        checkIndex(index);
+        final long word = index >>> 6;
+        word(word, word(word) & ~(1L << index));
+    }
+
+    public void flip(final long index) {
+        checkIndex(index);
+        final long word = index >>> 6;
+        word(word, word(word) ^ (1L << index));
+    }
+
+    /**
+     * Atomically sets the given bit
+     * @return the previous value of the bit
+     */
+    public boolean testAndSet(final long index) {
+        checkIndex(index);
+        final long address = base + ((index >>> 6) << 3);
+        final long mask = 1L << index;
+
+        long current;
+        do {
+            current = UNSAFE.getLongVolatile(null, address);
+            if((current & mask) != 0) return true;
+        } while(!UNSAFE.compareAndSwapLong(null, address, current, current | mask));
+
+        return false;
+    }
+
+    /**
+     * Atomically clears the given bit
+     * @return the previous value of the bit
+     */
+    public boolean testAndClear(final long index) {
+        checkIndex(index);
+        final long address = base + ((index >>> 6) << 3);
+        final long mask = 1L << index;
+
+        long current;
+        do {
+            current = UNSAFE.getLongVolatile(null, address);
+            if((current & mask) == 0) return false;
+        } while(!UNSAFE.compareAndSwapLong(null, address, current, current & ~mask));
+
+        return true;
+    }
+
+    /**
+     * Clears all bits
+     */
+    public void clear() {
+        UNSAFE.setMemory(base, words << 3, (byte) 0);
+    }
+
+    /**
+     * @return the index of the first set bit at or after the given index, or -1 if there is no such bit
+     */
+    public long nextSetBit(final long from) {
+        if(from < 0) throw new IndexOutOfBoundsException(from);
+        if(from >= bits) return -1;
+
+        long word = from >>> 6;
+        long value = word(word) & (-1L << from);
+        while(true) {
+            if(value != 0) {
+                final long index = (word << 6) + Long.numberOfTrailingZeros(value);
+                return index < bits ? index: -1;
+            }
+            if(++word == words) return -1;
+            value = word(word);
+        }
+    }
+
+    /**
+     * @return the index of the first clear bit at or after the given index, or -1 if there is no such bit
+     */
+    public long nextClearBit(final long from) {
+        if(from < 0) throw new IndexOutOfBoundsException(from);
+        if(from >= bits) return -1;
+
+        long word = from >>> 6;
+        long value = ~word(word) & (-1L << from);
+        while(true) {
+            if(value != 0) {
+                final long index = (word << 6) + Long.numberOfTrailingZeros(value);
+                return index < bits ? index: -1;
+            }
+            if(++word == words) return -1;
+            value = ~word(word);
+        }
+    }
+
+    /**
+     * @return the number of set bits
+     */
+    public long cardinality() {
+        if(words == 0) return 0;
+
+        long count = 0;
+        for(long i = 0; i < words - 1; i++) {
+            count += Long.bitCount(word(i));
+        }
+
+        return count + Long.bitCount(word(words - 1) & lastWordMask());
+    }
+
+    private void checkSize(final IOBitSet other) {
+        if(other.bits != bits) throw new IllegalArgumentException("Both bit sets must have the same size.");
+    }
+
+    /**
+     * Sets this bit set to the intersection of this and the given bit set
+     */
+    public void and(final IOBitSet other) {
+        checkSize(other);
+        for(long i = 0; i < words; i++) {
+            word(i, word(i) & other.word(i));
+        }
+    }
+
+    /**
+     * Sets this bit set to the union of this and the given bit set
+     */
+    public void or(final IOBitSet other) {
+        checkSize(other);
+        for(long i = 0; i < words; i++) {
+            word(i, word(i) | other.word(i));
+        }
+    }
+
+    /**
+     * Sets this bit set to the symmetric difference of this and the given bit set
+     */
+    public void xor(final IOBitSet other) {
+        checkSize(other);
+        for(long i = 0; i < words; i++) {
+            word(i, word(i) ^ other.word(i));
+        }
+    }
+
+    /**
+     * Clears all bits of this bit set which are set in the given bit set
+     */
+    public void andNot(final IOBitSet other) {
+        checkSize(other);
+        for(long i = 0; i < words; i++) {
+            word(i, word(i) & ~other.word(i));
+        }
+    }
+
+    public IOAccess getRegion() {
+        return region;
+    }
+
+    /**
+     * Frees the region if it has been allocated by the bit set
+     */
+    @Override
+    public void close() {
+        if(owned) region.release();
+    }
+}
@@ -0,0 +1,107 @@
+package com.bethibande.memory;
+
+/**
+ * Reads/writes a file through an {@link IOPageCache}
+ */
+class IOCachedFile implements IOAccessible {
+
+    private final IOPageCache cache;
+    private long index;
+
+    public IOCachedFile(final IOPageCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public String backend() {
+        return "page-cache";
+    }
+
+    @Override
+    public void setIndex(final long index) {
+        this.index = index;
+    }
+
+    @Override
+    public void skip(final long bytes) {
+        this.index += bytes;
+    }
+
+    @Override
+    public void flush() {
+        cache.flush();
+    }
+
+    @Override
+    public void force() {
+        cache.force();
+    }
+
+    @Override
+    public void release() {
+        cache.close();
+    }
+
+    @Override
+    public byte read() {
+        return cache.get(index++);
+    }
+
+    @Override
+    public byte[] read(final int len) {
+        final byte[] bytes = get(index, len);
+        index += len;
+        return bytes;
+    }
+
+    @Override
+    public byte get(final long index) {
+        return cache.get(index);
+    }
+
+    @Override
+    public byte[] get(final long index, final int length) {
+        final byte[] bytes = new byte[length];
+        cache.read(index, bytes, 0, length);
+        return bytes;
+    }
+
+    @Override
+    public void write(final byte b) {
+        cache.set(b, index++);
+    }
+
+    @Override
+    public void write(final byte[] data, final int off, final int len) {
+        cache.write(index, data, off, len);
+        index += len;
+    }
+
+    @Override
+    public void set(final byte b, final long index) {
+        cache.set(b, index);
+    }
+
+    @Override
+    public void set(final byte[] b, final long index, final int off, final int len) {
+        cache.write(index, b, off, len);
+    }
+
+    @Override
+    public void copyFrom(final IOAccessible accessible, final long index, final long offset, final int length) {
+        final byte[] data = accessible.get(offset, length);
+        set(data, index, 0, data.length);
+    }
+
+    @Override
+    public void copyFrom(final IOAccessible accessible, final long offset, final int length) {
+        final byte[] data = accessible.get(offset, length);
+        write(data, 0, data.length);
+    }
+
+    @Override
+    public void copyFrom(final IOAccessible accessible, final int length) {
+        final byte[] data = accessible.read(length);
+        write(data, 0, data.length);
+    }
+}
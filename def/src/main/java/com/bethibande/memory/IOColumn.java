@@ -0,0 +1,84 @@
+package com.bethibande.memory;
+
+/**
+ * Describes a column of a column file, see {@link IOColumnWriter} and {@link IOColumnReader}. <br>
+ * The statistics of floating point columns are stored as raw long bits, see {@link #minDouble()} and {@link #maxDouble()},
+ * NaN values are ignored. The statistics of empty columns are undefined.
+ * @param name the name of the column
+ * @param type the type of the values
+ * @param offset the offset of the first value within the file, -1 for column definitions that haven't been written yet
+ * @param min the smallest value of the column
+ * @param max the largest value of the column
+ */
+public record IOColumn(String name, Type type, long offset, long min, long max) {
+
+    public enum Type {
+        BYTE(1),
+        SHORT(2),
+        INT(4),
+        LONG(8),
+        FLOAT(4),
+        DOUBLE(8);
+
+        private final int width;
+
+        Type(final int width) {
+            this.width = width;
+        }
+
+        /**
+         * @return the size of a single value in bytes
+         */
+        public int width() {
+            return width;
+        }
+
+        public boolean isFloatingPoint() {
+            return this == FLOAT || this == DOUBLE;
+        }
+    }
+
+    public IOColumn {
+        if(name == null) throw new NullPointerException("name must not be null.");
+        if(type == null) throw new NullPointerException("type must not be null.");
+    }
+
+    /**
+     * Defines a column, used to create a column file using {@link IOColumnWriter#create(java.nio.file.Path, long, IOColumn...)}
+     */
+    public static IOColumn of(final String name, final Type type) {
+        return new IOColumn(name, type, -1L, 0L, 0L);
+    }
+
+    public double minDouble() {
+        return Double.longBitsToDouble(min);
+    }
+
+    public double maxDouble() {
+        return Double.longBitsToDouble(max);
+    }
+
+    /**
+     * @return the size of the column in bytes
+     */
+    public long length(final long rows) {
+        return rows * type.width();
+    }
+
+    /**
+     * Checks the statistics of the column, a column may only contain values within [min, max] if this method returns true.
+     * Floating point columns are compared using {@link #minDouble()} and {@link #maxDouble()}.
+     */
+    public boolean mayContain(final long from, final long to) {
+        if(type.isFloatingPoint()) return mayContain((double) from, (double) to);
+        return from <= max && to >= min;
+    }
+
+    /**
+     * Checks the statistics of the column, a column may only contain values within [min, max] if this method returns true.
+     */
+    public boolean mayContain(final double from, final double to) {
+        if(!type.isFloatingPoint()) return from <= max && to >= min;
+        return from <= maxDouble() && to >= minDouble();
+    }
+}
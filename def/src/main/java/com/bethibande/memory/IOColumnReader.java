@@ -0,0 +1,141 @@
+package com.bethibande.memory;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a column file written by {@link IOColumnWriter}. <br>
+ * The file is memory mapped read-only, only the footer is read when opening the file.
+ * Columns are returned as views of the mapping, scanning a column only pages in the pages of that column. <br>
+ * <b>!! Thread-safety:</b> The file is mapped as shared memory, readers may be used by multiple threads,
+ * views and cursors are owned by the thread creating them.
+ */
+@SuppressWarnings("unused")
+public class IOColumnReader implements AutoCloseable {
+
+    public static IOColumnReader open(final Path file) throws IOException {
+        final long size = Files.size(file);
+        if(size < IOColumnWriter.TRAILER_SIZE) throw new IllegalStateException("%s is not a column file.".formatted(file));
+
+        final IOAccess access = IOAccess.map(file, 0, size, FileChannel.MapMode.READ_ONLY, true);
+        try {
+            return new IOColumnReader(access, size);
+        } catch (RuntimeException e) {
+            access.release();
+            throw e;
+        }
+    }
+
+    private final IOAccess access;
+    private final long rows;
+    private final ByteOrder order;
+    private final List<IOColumn> columns;
+    private final Map<String, IOColumn> names = new HashMap<>();
+
+    private IOColumnReader(final IOAccess access, final long size) {
+        access.setByteOrder(ByteOrder.BIG_ENDIAN);
+        final int footerLength = access.getInt(size - IOColumnWriter.TRAILER_SIZE);
+        final int magic = access.getInt(size - 4);
+
+        if(magic != IOColumnWriter.MAGIC) throw new IllegalStateException("Not a column file, invalid magic number.");
+        if(footerLength < 0 || footerLength > size - IOColumnWriter.TRAILER_SIZE) throw new IllegalStateException("Invalid footer length %d.".formatted(footerLength));
+
+        access.setIndex(size - IOColumnWriter.TRAILER_SIZE - footerLength);
+        final byte version = access.read();
+        if(version != IOColumnWriter.VERSION) throw new IllegalStateException("Unsupported column file version %d.".formatted(version));
+
+        this.access = access;
+        this.order = access.read() == IOColumnWriter.BIG_ENDIAN ? ByteOrder.BIG_ENDIAN: ByteOrder.LITTLE_ENDIAN;
+        this.rows = access.readLong();
+
+        final int count = access.readInt();
+        final IOColumn.Type[] types = IOColumn.Type.values();
+        final List<IOColumn> columns = new ArrayList<>(count);
+        for(int i = 0; i < count; i++) {
+            final String name = access.readStringShort(StandardCharsets.UTF_8);
+            final int type = access.read();
+            if(type < 0 || type >= types.length) throw new IllegalStateException("Unknown column type %d.".formatted(type));
+
+            final IOColumn column = new IOColumn(name, types[type], access.readLong(), access.readLong(), access.readLong());
+            if(column.offset() < 0 || column.offset() + column.length(rows) > size) throw new IllegalStateException("Column %s exceeds the file.".formatted(name));
+
+            columns.add(column);
+            names.put(name, column);
+        }
+
+        this.columns = Collections.unmodifiableList(columns);
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    /**
+     * @return the byte order the values are stored in
+     */
+    public ByteOrder order() {
+        return order;
+    }
+
+    public List<IOColumn> columns() {
+        return columns;
+    }
+
+    /**
+     * @return the column with the given name, or null if there is no such column
+     */
+    public IOColumn column(final String name) {
+        return names.get(name);
+    }
+
+    private IOColumn require(final String name) {
+        final IOColumn column = names.get(name);
+        if(column == null) throw new IllegalArgumentException("Unknown column %s.".formatted(name));
+
+        return column;
+    }
+
+    /**
+     * Returns a read-only view of the values of the given column, without copying them.
+     * Value i is stored at index <code>i * type.width()</code>, the byte order of the view is set to the order of the file.
+     * Views become invalid once the reader is closed.
+     */
+    public IOAccess view(final IOColumn column) {
+        final IOAccess view = access.slice(column.offset(), column.length(rows));
+        view.setByteOrder(order);
+        return view;
+    }
+
+    public IOAccess view(final String name) {
+        return view(require(name));
+    }
+
+    /**
+     * Returns a cursor over the values of the given column, positions are relative to the start of the column.
+     * The cursor uses the byte order of the file.
+     */
+    public IOCursor cursor(final IOColumn column) {
+        return view(column).cursor(0, column.length(rows));
+    }
+
+    public IOCursor cursor(final String name) {
+        return cursor(require(name));
+    }
+
+    /**
+     * Unmaps the file, views and cursors must not be used afterwards
+     */
+    @Override
+    public void close() {
+        access.release();
+    }
+}
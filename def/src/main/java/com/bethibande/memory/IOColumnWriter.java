@@ -0,0 +1,198 @@
+package com.bethibande.memory;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a column file, storing every column as a contiguous array of primitive values. <br>
+ * The file is laid out as <code>[column 0][column 1]...[footer][footer length: int][magic: int]</code>,
+ * each column starts at an offset aligned to {@link #ALIGNMENT} bytes. Values are stored in native byte order,
+ * the footer is big-endian and contains the byte order of the values, the number of rows,
+ * and the name, type, offset and min/max statistics of every column. <br>
+ * The file is memory mapped when it is created, columns are written using the views returned by {@link #column(int)},
+ * e.g. using {@link IOAccess#cursor(long, long)} or bulk writes. The statistics are computed and the footer is written
+ * when the writer is closed. See {@link IOColumnReader}. <br>
+ * <b>!! Thread-safety:</b> Column writers are not thread-safe, the views are owned by the thread creating the writer.
+ */
+@SuppressWarnings("unused")
+public class IOColumnWriter implements AutoCloseable {
+
+    public static final int MAGIC = 0x42434F4C;
+    public static final byte VERSION = 1;
+    public static final int ALIGNMENT = 64;
+    public static final int TRAILER_SIZE = 8;
+
+    static final byte BIG_ENDIAN = 0;
+    static final byte LITTLE_ENDIAN = 1;
+
+    /**
+     * Creates, or overwrites, a column file with the given number of rows and columns
+     * @param file the file to create
+     * @param rows the number of values stored in every column
+     * @param columns the definitions of the columns, see {@link IOColumn#of(String, IOColumn.Type)}
+     */
+    public static IOColumnWriter create(final Path file, final long rows, final IOColumn... columns) throws IOException {
+        if(rows < 0) throw new IllegalArgumentException("The number of rows must not be negative.");
+        if(columns.length == 0) throw new IllegalArgumentException("At least one column is required.");
+
+        final Map<String, Integer> names = new HashMap<>();
+        final long[] offsets = new long[columns.length];
+        long offset = 0;
+        long footer = 1 + 1 + 8 + 4;
+        for(int i = 0; i < columns.length; i++) {
+            if(names.put(columns[i].name(), i) != null) throw new IllegalArgumentException("Duplicate column %s.".formatted(columns[i].name()));
+
+            final int nameLength = columns[i].name().getBytes(StandardCharsets.UTF_8).length;
+            if(nameLength > Short.MAX_VALUE) throw new IllegalArgumentException("The column name %s is too long.".formatted(columns[i].name()));
+
+            offsets[i] = offset;
+            offset = align(offset + columns[i].length(rows));
+            footer += 2 + nameLength + 1 + 8 + 8 + 8;
+        }
+
+        final long size = offset + footer + TRAILER_SIZE;
+        Files.write(file, new byte[0]);
+        final IOAccess access = IOAccess.map(file, 0, size, FileChannel.MapMode.READ_WRITE);
+
+        return new IOColumnWriter(access, rows, columns, offsets, offset, names);
+    }
+
+    static long align(final long offset) {
+        return (offset + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    private final IOAccess access;
+    private final long rows;
+    private final IOColumn[] columns;
+    private final long[] offsets;
+    private final long footerOffset;
+    private final Map<String, Integer> names;
+    private final IOAccess[] views;
+
+    private boolean closed = false;
+
+    private IOColumnWriter(final IOAccess access,
+                           final long rows,
+                           final IOColumn[] columns,
+                           final long[] offsets,
+                           final long footerOffset,
+                           final Map<String, Integer> names) {
+        this.access = access;
+        this.rows = rows;
+        this.columns = columns;
+        this.offsets = offsets;
+        this.footerOffset = footerOffset;
+        this.names = names;
+        this.views = new IOAccess[columns.length];
+    }
+
+    private void checkClosed() {
+        if(closed) throw new IllegalStateException("The column writer has already been closed.");
+    }
+
+    /**
+     * Returns a view of the values of the given column, the view is indexed and writes values in native byte order.
+     * Value i is stored at index <code>i * type.width()</code>. Views become invalid once the writer is closed.
+     */
+    public IOAccess column(final int column) {
+        checkClosed();
+        if(views[column] == null) {
+            views[column] = access.slice(offsets[column], columns[column].length(rows));
+        }
+
+        return views[column];
+    }
+
+    public IOAccess column(final String name) {
+        final Integer column = names.get(name);
+        if(column == null) throw new IllegalArgumentException("Unknown column %s.".formatted(name));
+
+        return column(column);
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    public List<IOColumn> columns() {
+        return List.of(columns);
+    }
+
+    /**
+     * Computes the min/max statistics of a column by scanning its values
+     */
+    private IOColumn statistics(final int column) {
+        final IOColumn.Type type = columns[column].type();
+        final long length = columns[column].length(rows);
+        final IOCursor cursor = access.cursor(offsets[column], length);
+        final long end = offsets[column] + length;
+
+        if(type.isFloatingPoint()) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for(long i = offsets[column]; i < end; i += type.width()) {
+                final double value = type == IOColumn.Type.FLOAT ? cursor.getFloat(i): cursor.getDouble(i);
+                if(value < min) min = value;
+                if(value > max) max = value;
+            }
+
+            return new IOColumn(columns[column].name(), type, offsets[column], Double.doubleToRawLongBits(min), Double.doubleToRawLongBits(max));
+        }
+
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for(long i = offsets[column]; i < end; i += type.width()) {
+            final long value = switch(type) {
+                case BYTE -> cursor.get(i);
+                case SHORT -> cursor.getShort(i);
+                case INT -> cursor.getInt(i);
+                default -> cursor.getLong(i);
+            };
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        return new IOColumn(columns[column].name(), type, offsets[column], min, max);
+    }
+
+    /**
+     * Computes the statistics, writes the footer, flushes the file and unmaps it
+     */
+    @Override
+    public void close() {
+        if(closed) return;
+        closed = true;
+
+        final IOColumn[] written = new IOColumn[columns.length];
+        for(int i = 0; i < columns.length; i++) {
+            written[i] = statistics(i);
+        }
+
+        access.setByteOrder(ByteOrder.BIG_ENDIAN);
+        access.setIndex(footerOffset);
+        access.write(VERSION);
+        access.write(ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN ? BIG_ENDIAN: LITTLE_ENDIAN);
+        access.writeLong(rows);
+        access.writeInt(written.length);
+        for(IOColumn column : written) {
+            access.writeStringShort(column.name(), StandardCharsets.UTF_8);
+            access.write((byte) column.type().ordinal());
+            access.writeLong(column.offset());
+            access.writeLong(column.min());
+            access.writeLong(column.max());
+        }
+
+        access.writeInt((int) (access.index() - footerOffset));
+        access.writeInt(MAGIC);
+
+        access.force();
+        access.release();
+    }
+}
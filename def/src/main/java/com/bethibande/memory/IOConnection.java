@@ -0,0 +1,285 @@
+package com.bethibande.memory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.function.Consumer;
+
+/**
+ * A non-blocking socket connection driven by an {@link IOEventLoop}. <br>
+ * Received bytes are read into an off-heap receive buffer, which can be read using {@link #receiveBuffer()}
+ * or {@link #cursor()}, starting at {@link #readIndex()}. Consumed bytes must be released using {@link #consume(long)},
+ * the connection stops reading from the socket while the receive buffer is full. <br>
+ * Writes are sent immediately if possible, the remaining bytes are copied into an off-heap send buffer
+ * and drained by the event loop once the socket becomes writable. <br>
+ * <b>!! Thread-safety:</b> Connections may only be used by the thread of their event loop,
+ * e.g. in callbacks or using {@link IOEventLoop#execute(Runnable)}.
+ */
+@SuppressWarnings("unused")
+public class IOConnection implements AutoCloseable {
+
+    private final IOEventLoop loop;
+    private final SocketChannel channel;
+    private SelectionKey key;
+
+    private final IOAccess receive;
+    private final ByteBuffer receiveView;
+    private final int receiveCapacity;
+    private long readIndex = 0;
+    private long writeIndex = 0;
+
+    private final IOAccess send;
+    private final ByteBuffer sendView;
+    private final int sendCapacity;
+    private int sendRead = 0;
+    private int sendWrite = 0;
+
+    private long expected = -1;
+    private Consumer<IOConnection> availableCallback;
+    private Consumer<IOConnection> closeCallback;
+    private boolean closed = false;
+
+    IOConnection(final IOEventLoop loop,
+                 final SocketChannel channel,
+                 final int receiveCapacity,
+                 final int sendCapacity) {
+        this.loop = loop;
+        this.channel = channel;
+        this.receiveCapacity = receiveCapacity;
+        this.sendCapacity = sendCapacity;
+
+        if(IOScopedMemory.isNativeAccessEnabled()) {
+            this.receive = UnsafeIOAccess.allocate((long) receiveCapacity);
+            this.receiveView = receive.sharedBuffer(0, receiveCapacity);
+            this.send = UnsafeIOAccess.allocate((long) sendCapacity);
+            this.sendView = send.sharedBuffer(0, sendCapacity);
+        } else {
+            // unsafe memory cannot be viewed as a buffer, direct buffers are freed by the garbage collector
+            this.receiveView = ByteBuffer.allocateDirect(receiveCapacity).order(ByteOrder.nativeOrder());
+            this.receive = IOAccess.wrap(receiveView);
+            this.sendView = ByteBuffer.allocateDirect(sendCapacity).order(ByteOrder.nativeOrder());
+            this.send = IOAccess.wrap(sendView);
+        }
+    }
+
+    void register(final SelectionKey key) {
+        this.key = key;
+    }
+
+    private void checkEventLoop() {
+        if(!loop.inEventLoop()) throw new IllegalStateException("Connections may only be used by the thread of their event loop.");
+        if(closed) throw new IllegalStateException("The connection has already been closed.");
+    }
+
+    /**
+     * Reads all bytes currently available from the socket, called by the event loop
+     */
+    void handleRead() throws IOException {
+        while(true) {
+            if(writeIndex == receiveCapacity) {
+                if(readIndex == 0) {
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                    break;
+                }
+                compact();
+            }
+
+            final int read = channel.read(receiveView.limit(receiveCapacity).position((int) writeIndex));
+            if(read < 0) {
+                close();
+                return;
+            }
+            if(read == 0) break;
+
+            writeIndex += read;
+        }
+
+        notifyAvailable();
+    }
+
+    /**
+     * Drains the send buffer, called by the event loop
+     */
+    void handleWrite() throws IOException {
+        sendRead += channel.write(sendView.limit(sendWrite).position(sendRead));
+
+        if(sendRead == sendWrite) {
+            sendRead = 0;
+            sendWrite = 0;
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        }
+    }
+
+    private void compact() {
+        receiveView.limit((int) writeIndex).position((int) readIndex);
+        receiveView.compact();
+
+        writeIndex -= readIndex;
+        readIndex = 0;
+    }
+
+    private void notifyAvailable() {
+        if(closed || availableCallback == null || available() < expected) return;
+
+        final Consumer<IOConnection> callback = availableCallback;
+        availableCallback = null;
+        expected = -1;
+        callback.accept(this);
+    }
+
+    /**
+     * Calls the callback once at least the given number of bytes can be read, the callback is called
+     * immediately if enough bytes are available. The callback is only called once, and replaces any previous callback.
+     * @param bytes the number of bytes, must not exceed the capacity of the receive buffer
+     */
+    public void onAvailable(final long bytes, final Consumer<IOConnection> callback) {
+        checkEventLoop();
+        if(bytes > receiveCapacity) throw new IllegalArgumentException("Cannot wait for more bytes than the receive buffer can hold.");
+
+        this.expected = bytes;
+        this.availableCallback = callback;
+        notifyAvailable();
+    }
+
+    /**
+     * Sets the callback called once the connection has been closed, either locally or by the remote peer
+     */
+    public void onClose(final Consumer<IOConnection> callback) {
+        this.closeCallback = callback;
+    }
+
+    /**
+     * @return the number of received bytes which haven't been consumed yet
+     */
+    public long available() {
+        return writeIndex - readIndex;
+    }
+
+    /**
+     * @return the index of the first unconsumed byte within the receive buffer
+     */
+    public long readIndex() {
+        return readIndex;
+    }
+
+    /**
+     * @return the receive buffer, unconsumed bytes are located at [readIndex, readIndex + available).
+     *         The position of the bytes changes after consuming bytes.
+     */
+    public IOAccess receiveBuffer() {
+        return receive;
+    }
+
+    /**
+     * @return a cursor reading the unconsumed bytes, the cursor is invalid after consuming bytes
+     */
+    public IOCursor cursor() {
+        return receive.cursor(readIndex, available());
+    }
+
+    /**
+     * Releases the given number of bytes from the receive buffer
+     */
+    public void consume(final long bytes) {
+        checkEventLoop();
+        if(bytes < 0 || bytes > available()) throw new IndexOutOfBoundsException(bytes);
+
+        readIndex += bytes;
+        if(readIndex == writeIndex) {
+            readIndex = 0;
+            writeIndex = 0;
+        }
+
+        if((key.interestOps() & SelectionKey.OP_READ) == 0) key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+    }
+
+    /**
+     * @return the number of bytes which can currently be written without overflowing the send buffer
+     */
+    public int writable() {
+        return sendCapacity - (sendWrite - sendRead);
+    }
+
+    public void write(final byte[] data) {
+        write(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Writes the given region of an access, memory backed accesses are sent without an intermediate array
+     */
+    public void write(final IOAccess source, final long index, final int length) {
+        source.checkRead();
+        source.checkIndexed();
+        source.checkReadIndex(index, length);
+
+        final ByteBuffer view = source.buffer(index, length);
+        write(view != null ? view: ByteBuffer.wrap(source.get(index, length)));
+    }
+
+    /**
+     * Writes the remaining bytes of the buffer. The bytes are written to the socket immediately if possible,
+     * the remaining bytes are copied to the send buffer and sent asynchronously.
+     * @throws IllegalStateException if the bytes don't fit into the send buffer, see {@link #writable()}
+     */
+    public void write(final ByteBuffer data) {
+        checkEventLoop();
+        if(data.remaining() > writable()) throw new IllegalStateException("Send buffer overflow, %d bytes writable.".formatted(writable()));
+
+        try {
+            if(sendRead == sendWrite) channel.write(data);
+        } catch (IOException e) {
+            close();
+            throw new RuntimeException(e);
+        }
+
+        if(!data.hasRemaining()) return;
+
+        if(sendCapacity - sendWrite < data.remaining()) {
+            sendView.limit(sendWrite).position(sendRead);
+            sendView.compact();
+            sendWrite -= sendRead;
+            sendRead = 0;
+        }
+
+        final int length = data.remaining();
+        sendView.limit(sendCapacity).position(sendWrite);
+        sendView.put(data);
+        sendWrite += length;
+
+        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+    }
+
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    public IOEventLoop getEventLoop() {
+        return loop;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes the socket and frees the receive and send buffers, unsent bytes are discarded
+     */
+    @Override
+    public void close() {
+        if(closed) return;
+        closed = true;
+
+        if(key != null) key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            receive.release();
+            send.release();
+            if(closeCallback != null) closeCallback.accept(this);
+        }
+    }
+}
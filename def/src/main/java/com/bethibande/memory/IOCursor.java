@@ -0,0 +1,399 @@
+package com.bethibande.memory;
+
+import sun.misc.Unsafe;
+
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/**
+ * A cursor reading/writing primitives from/to a fixed region of an access. <br>
+ * Ownership, permissions, the released state and the bounds of the region are validated once,
+ * when the cursor is created using {@link IOAccess#cursor(long, long)}. Afterwards every access only checks
+ * whether it lies within the region, the position is a plain long.
+ * Read or write calls without the required permission fail the range check. <br>
+ * Positions are absolute offsets within the access the cursor was created from, values are read and written
+ * in the byte order of the access. Cursors using a non-native byte order are a separate implementation swapping
+ * the bytes of every value, native byte order cursors never check the byte order. <br>
+ * <b>!! Note:</b> The cursor must not be used after the access has been released, doing so will corrupt memory
+ * or crash the jvm. <br>
+ * <b>!! Thread-safety:</b> Cursors are not thread-safe, create one cursor per thread.
+ */
+@SuppressWarnings("unused")
+public class IOCursor {
+
+    static final long BYTE_ARRAY_BASE_OFFSET;
+
+    private static final Unsafe UNSAFE;
+
+    static {
+        try {
+            UNSAFE = UnsafeHelper.getUnsafe();
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+
+        BYTE_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
+    }
+
+    /**
+     * Called before the cursor modifies memory, e.g. to copy the pages of open snapshots
+     */
+    @FunctionalInterface
+    interface WriteBarrier {
+
+        void beforeWrite(long address, long length);
+    }
+
+    private final Object base;
+    private final long address;
+    private final long start;
+    private final long limit;
+    private final long readLimit;
+    private final long writeLimit;
+    private final WriteBarrier barrier;
+
+    private long position;
+
+    /**
+     * @param base the array backing the access, or null for native memory
+     * @param address the address of the first byte of the access, or the array base offset
+     * @param start the first index of the region
+     * @param limit the index after the last byte of the region
+     */
+    IOCursor(final Object base,
+             final long address,
+             final long start,
+             final long limit,
+             final boolean canRead,
+             final boolean canWrite) {
+        this(base, address, start, limit, canRead, canWrite, null);
+    }
+
+    /**
+     * @param barrier called before every write, or null
+     */
+    IOCursor(final Object base,
+             final long address,
+             final long start,
+             final long limit,
+             final boolean canRead,
+             final boolean canWrite,
+             final WriteBarrier barrier) {
+        this.base = base;
+        this.address = address;
+        this.start = start;
+        this.limit = limit;
+        this.readLimit = canRead ? limit: start;
+        this.writeLimit = canWrite ? limit: start;
+        this.barrier = barrier;
+        this.position = start;
+    }
+
+    private long nextRead(final int size) {
+        final long p = position;
+        if(p + size > readLimit) fail(p, size, readLimit, "read");
+        position = p + size;
+        return address + p;
+    }
+
+    private long nextWrite(final int size) {
+        final long p = position;
+        if(p + size > writeLimit) fail(p, size, writeLimit, "write");
+        if(barrier != null) barrier.beforeWrite(address + p, size);
+        position = p + size;
+        return address + p;
+    }
+
+    private long readAddress(final long index, final int size) {
+        if(index < start || index + size > readLimit) fail(index, size, readLimit, "read");
+        return address + index;
+    }
+
+    private long writeAddress(final long index, final int size) {
+        if(index < start || index + size > writeLimit) fail(index, size, writeLimit, "write");
+        if(barrier != null) barrier.beforeWrite(address + index, size);
+        return address + index;
+    }
+
+    private void fail(final long index, final long size, final long limit, final String operation) {
+        if(limit == start && this.limit != start) throw new IllegalAccessError("Cursor has no %s access.".formatted(operation));
+        throw new IndexOutOfBoundsException("Cannot %s %d bytes at index %d, region is [%d, %d)".formatted(operation, size, index, start, this.limit));
+    }
+
+    public byte read() {
+        return UNSAFE.getByte(base, nextRead(1));
+    }
+
+    public short readUByte() {
+        return IOHelper.byteToUByte(read());
+    }
+
+    public short readShort() {
+        return UNSAFE.getShort(base, nextRead(2));
+    }
+
+    public int readUShort() {
+        return IOHelper.shortToUShort(readShort());
+    }
+
+    public int readInt() {
+        return UNSAFE.getInt(base, nextRead(4));
+    }
+
+    public long readUInt() {
+        return IOHelper.intToUInt(readInt());
+    }
+
+    public long readLong() {
+        return UNSAFE.getLong(base, nextRead(8));
+    }
+
+    public float readFloat() {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    public double readDouble() {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    public boolean readBoolean() {
+        return read() != 0;
+    }
+
+    /**
+     * Reads bytes into the given array
+     * @throws IndexOutOfBoundsException if off and len do not denote a region of the array
+     */
+    public void read(final byte[] dst, final int off, final int len) {
+        Objects.checkFromIndexSize(off, len, dst.length);
+        UNSAFE.copyMemory(base, nextRead(len), dst, BYTE_ARRAY_BASE_OFFSET + off, len);
+    }
+
+    public void write(final byte b) {
+        UNSAFE.putByte(base, nextWrite(1), b);
+    }
+
+    public void writeUByte(final short b) {
+        write(IOHelper.uByteToByte(b));
+    }
+
+    public void writeShort(final short s) {
+        UNSAFE.putShort(base, nextWrite(2), s);
+    }
+
+    public void writeUShort(final int s) {
+        writeShort(IOHelper.uShortToShort(s));
+    }
+
+    public void writeInt(final int i) {
+        UNSAFE.putInt(base, nextWrite(4), i);
+    }
+
+    public void writeUInt(final long i) {
+        writeInt(IOHelper.uIntToInt(i));
+    }
+
+    public void writeLong(final long l) {
+        UNSAFE.putLong(base, nextWrite(8), l);
+    }
+
+    public void writeFloat(final float f) {
+        writeInt(Float.floatToRawIntBits(f));
+    }
+
+    public void writeDouble(final double d) {
+        writeLong(Double.doubleToRawLongBits(d));
+    }
+
+    public void writeBoolean(final boolean b) {
+        write(b ? (byte) 1: (byte) 0);
+    }
+
+    /**
+     * Writes bytes from the given array
+     * @throws IndexOutOfBoundsException if off and len do not denote a region of the array
+     */
+    public void write(final byte[] src, final int off, final int len) {
+        Objects.checkFromIndexSize(off, len, src.length);
+        UNSAFE.copyMemory(src, BYTE_ARRAY_BASE_OFFSET + off, base, nextWrite(len), len);
+    }
+
+    public byte get(final long index) {
+        return UNSAFE.getByte(base, readAddress(index, 1));
+    }
+
+    public short getShort(final long index) {
+        return UNSAFE.getShort(base, readAddress(index, 2));
+    }
+
+    public int getInt(final long index) {
+        return UNSAFE.getInt(base, readAddress(index, 4));
+    }
+
+    public long getLong(final long index) {
+        return UNSAFE.getLong(base, readAddress(index, 8));
+    }
+
+    public float getFloat(final long index) {
+        return Float.intBitsToFloat(getInt(index));
+    }
+
+    public double getDouble(final long index) {
+        return Double.longBitsToDouble(getLong(index));
+    }
+
+    public void set(final byte b, final long index) {
+        UNSAFE.putByte(base, writeAddress(index, 1), b);
+    }
+
+    public void setShort(final short s, final long index) {
+        UNSAFE.putShort(base, writeAddress(index, 2), s);
+    }
+
+    public void setInt(final int i, final long index) {
+        UNSAFE.putInt(base, writeAddress(index, 4), i);
+    }
+
+    public void setLong(final long l, final long index) {
+        UNSAFE.putLong(base, writeAddress(index, 8), l);
+    }
+
+    public void setFloat(final float f, final long index) {
+        setInt(Float.floatToRawIntBits(f), index);
+    }
+
+    public void setDouble(final double d, final long index) {
+        setLong(Double.doubleToRawLongBits(d), index);
+    }
+
+    public void skip(final long bytes) {
+        position(position + bytes);
+    }
+
+    public long position() {
+        return position;
+    }
+
+    public void position(final long position) {
+        if(position < start || position > limit) throw new IndexOutOfBoundsException(position);
+        this.position = position;
+    }
+
+    /**
+     * @return the bytes remaining between the position and the end of the region
+     */
+    public long remaining() {
+        return limit - position;
+    }
+
+    public long start() {
+        return start;
+    }
+
+    public long limit() {
+        return limit;
+    }
+
+    public ByteOrder getByteOrder() {
+        return ByteOrder.nativeOrder();
+    }
+
+    /**
+     * Returns a cursor over the same region using the given byte order, the position of the new cursor is
+     * the first index of the region. Returns this cursor if it already uses the given byte order.
+     */
+    public IOCursor withByteOrder(final ByteOrder order) {
+        if(order == getByteOrder()) return this;
+
+        final boolean canRead = readLimit == limit;
+        final boolean canWrite = writeLimit == limit;
+        return order == ByteOrder.nativeOrder()
+                ? new IOCursor(base, address, start, limit, canRead, canWrite, barrier)
+                : new Swapped(base, address, start, limit, canRead, canWrite, barrier);
+    }
+
+    /**
+     * A cursor reading/writing values in the non-native byte order
+     */
+    static final class Swapped extends IOCursor {
+
+        private static final ByteOrder ORDER = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN
+                ? ByteOrder.LITTLE_ENDIAN
+                : ByteOrder.BIG_ENDIAN;
+
+        Swapped(final Object base,
+                final long address,
+                final long start,
+                final long limit,
+                final boolean canRead,
+                final boolean canWrite,
+                final WriteBarrier barrier) {
+            super(base, address, start, limit, canRead, canWrite, barrier);
+        }
+
+        @Override
+        public short readShort() {
+            return Short.reverseBytes(super.readShort());
+        }
+
+        @Override
+        public int readInt() {
+            return Integer.reverseBytes(super.readInt());
+        }
+
+        @Override
+        public long readLong() {
+            return Long.reverseBytes(super.readLong());
+        }
+
+        @Override
+        public void writeShort(final short s) {
+            super.writeShort(Short.reverseBytes(s));
+        }
+
+        @Override
+        public void writeInt(final int i) {
+            super.writeInt(Integer.reverseBytes(i));
+        }
+
+        @Override
+        public void writeLong(final long l) {
+            super.writeLong(Long.reverseBytes(l));
+        }
+
+        @Override
+        public short getShort(final long index) {
+            return Short.reverseBytes(super.getShort(index));
+        }
+
+        @Override
+        public int getInt(final long index) {
+            return Integer.reverseBytes(super.getInt(index));
+        }
+
+        @Override
+        public long getLong(final long index) {
+            return Long.reverseBytes(super.getLong(index));
+        }
+
+        @Override
+        public void setShort(final short s, final long index) {
+            super.setShort(Short.reverseBytes(s), index);
+        }
+
+        @Override
+        public void setInt(final int i, final long index) {
+            super.setInt(Integer.reverseBytes(i), index);
+        }
+
+        @Override
+        public void setLong(final long l, final long index) {
+            super.setLong(Long.reverseBytes(l), index);
+        }
+
+        @Override
+        public ByteOrder getByteOrder() {
+            return ORDER;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.bethibande.memory;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * A selector based event loop driving non-blocking {@link IOConnection}s using a single thread.
+ * All callbacks are called by the thread of the event loop. Exceptions thrown by a task are logged,
+ * exceptions thrown by a callback of a connection are logged and close the connection. <br>
+ * <b>!! Thread-safety:</b> {@link #execute(Runnable)}, {@link #listen(ServerSocketChannel, Consumer)},
+ * {@link #connect(SocketAddress, Consumer)} and {@link #close()} may be called by any thread.
+ */
+@SuppressWarnings("unused")
+public class IOEventLoop implements AutoCloseable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private record Acceptor(ServerSocketChannel server, Consumer<IOConnection> callback) { }
+
+    private record Connector(SocketChannel channel, Consumer<IOConnection> callback) { }
+
+    private static final System.Logger LOGGER = System.getLogger(IOEventLoop.class.getName());
+
+    private final Selector selector;
+    private final Thread thread;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final int receiveBufferSize;
+    private final int sendBufferSize;
+
+    private volatile boolean running = true;
+
+    public IOEventLoop(final String name) throws IOException {
+        this(name, DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates and starts an event loop
+     * @param name the name of the event loop thread
+     * @param receiveBufferSize the size of the off-heap receive buffer of every connection
+     * @param sendBufferSize the size of the off-heap send buffer of every connection
+     */
+    public IOEventLoop(final String name, final int receiveBufferSize, final int sendBufferSize) throws IOException {
+        this.selector = Selector.open();
+        this.receiveBufferSize = receiveBufferSize;
+        this.sendBufferSize = sendBufferSize;
+
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Runs the given task on the thread of the event loop
+     */
+    public void execute(final Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Accepts connections from the given server channel
+     * @param callback called for every accepted connection
+     */
+    public void listen(final ServerSocketChannel server, final Consumer<IOConnection> callback) {
+        execute(() -> {
+            try {
+                server.configureBlocking(false);
+                server.register(selector, SelectionKey.OP_ACCEPT, new Acceptor(server, callback));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    /**
+     * Opens a connection to the given address
+     * @param callback called once the connection has been established
+     */
+    public void connect(final SocketAddress address, final Consumer<IOConnection> callback) throws IOException {
+        final SocketChannel channel = SocketChannel.open();
+        channel.configureBlocking(false);
+
+        execute(() -> {
+            try {
+                if(channel.connect(address)) {
+                    connected(callback, register(channel));
+                    return;
+                }
+                channel.register(selector, SelectionKey.OP_CONNECT, new Connector(channel, callback));
+            } catch (IOException e) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) { }
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    /**
+     * Registers a connected channel, must be called by the thread of the event loop
+     */
+    public IOConnection register(final SocketChannel channel) throws IOException {
+        if(!inEventLoop()) throw new IllegalStateException("Channels may only be registered by the thread of the event loop.");
+
+        channel.configureBlocking(false);
+        final IOConnection connection = new IOConnection(this, channel, receiveBufferSize, sendBufferSize);
+        try {
+            connection.register(channel.register(selector, SelectionKey.OP_READ, connection));
+        } catch (IOException | RuntimeException e) {
+            try {
+                connection.close();
+            } catch (RuntimeException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+
+        return connection;
+    }
+
+    private void run() {
+        try {
+            while(running) {
+                selector.select();
+
+                Runnable task;
+                while((task = tasks.poll()) != null) {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        LOGGER.log(System.Logger.Level.WARNING, "Event loop task failed.", e);
+                    }
+                }
+
+                final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while(keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+
+                    handle(key);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(System.Logger.Level.ERROR, "Event loop failed, closing all connections.", e);
+        } finally {
+            running = false;
+            shutdown();
+        }
+    }
+
+    private void shutdown() {
+        for(SelectionKey key : selector.keys()) {
+            fail(key);
+        }
+
+        try {
+            selector.close();
+        } catch (IOException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "Failed to close the selector.", e);
+        }
+    }
+
+    private void handle(final SelectionKey key) {
+        try {
+            if(!key.isValid()) return;
+
+            if(key.attachment() instanceof IOConnection connection) {
+                if(key.isReadable()) connection.handleRead();
+                if(key.isValid() && key.isWritable()) connection.handleWrite();
+            } else if(key.attachment() instanceof Acceptor acceptor) {
+                SocketChannel channel;
+                while((channel = acceptor.server().accept()) != null) {
+                    accept(acceptor, channel);
+                }
+            } else if(key.attachment() instanceof Connector connector) {
+                if(connector.channel().finishConnect()) {
+                    final IOConnection connection = new IOConnection(this, connector.channel(), receiveBufferSize, sendBufferSize);
+                    connection.register(key);
+                    key.attach(connection);
+                    key.interestOps(SelectionKey.OP_READ);
+                    connected(connector.callback(), connection);
+                }
+            }
+        } catch (IOException e) {
+            fail(key);
+        } catch (RuntimeException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "Event loop callback failed, closing the connection.", e);
+            fail(key);
+        }
+    }
+
+    /**
+     * Registers an accepted channel and passes it to the callback of the acceptor. If the channel cannot be registered,
+     * it is closed and the server keeps accepting connections
+     */
+    private void accept(final Acceptor acceptor, final SocketChannel channel) {
+        final IOConnection connection;
+        try {
+            connection = register(channel);
+        } catch (IOException | RuntimeException e) {
+            try {
+                channel.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            LOGGER.log(System.Logger.Level.WARNING, "Failed to register an accepted channel, the channel has been closed.", e);
+            return;
+        }
+
+        connected(acceptor.callback(), connection);
+    }
+
+    /**
+     * Passes a new connection to the given callback, the connection is closed if the callback fails
+     */
+    private void connected(final Consumer<IOConnection> callback, final IOConnection connection) {
+        try {
+            callback.accept(connection);
+        } catch (RuntimeException e) {
+            try {
+                connection.close();
+            } catch (RuntimeException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            LOGGER.log(System.Logger.Level.WARNING, "Connection callback failed, the connection has been closed.", e);
+        }
+    }
+
+    /**
+     * Closes the connection or pending connection of the given key, server channels are only deregistered.
+     * Exceptions thrown while closing are logged
+     */
+    private void fail(final SelectionKey key) {
+        try {
+            if(key.attachment() instanceof IOConnection connection) {
+                connection.close();
+            } else if(key.attachment() instanceof Connector connector) {
+                connector.channel().close();
+            } else {
+                key.cancel();
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "Failed to close a channel.", e);
+        }
+    }
+
+    /**
+     * Stops the event loop and closes all connections
+     */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+}
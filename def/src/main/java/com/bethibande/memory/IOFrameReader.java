@@ -0,0 +1,127 @@
+package com.bethibande.memory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads frames written by {@link IOFrameWriter}. <br>
+ * If the source access is indexed and has a known length, frames are validated in place and returned
+ * as zero-copy slices of the source. Otherwise, e.g. for streams, the frames are read sequentially and returned
+ * as heap backed accesses. <br>
+ * A header consisting only of zeros marks the end of the data, a valid frame can never have such a header,
+ * since the checksum also covers the length field. This allows reading zero-filled, preallocated files. <br>
+ * <b>!! Thread-safety:</b> Frame readers are not thread-safe.
+ */
+@SuppressWarnings("unused")
+public class IOFrameReader {
+
+    public static final int HEADER_SIZE = IOFrameWriter.HEADER_SIZE;
+
+    private final IOAccess source;
+    private final boolean inPlace;
+    private final ByteBuffer lengthBuffer = ByteBuffer.allocate(4).order(ByteOrder.BIG_ENDIAN);
+    private final CRC32C crc = new CRC32C();
+
+    private long position;
+
+    public IOFrameReader(final IOAccess source) {
+        this.source = source;
+        this.inPlace = source.isIndexed() && source.length() >= 0;
+        this.position = inPlace ? source.index(): 0L;
+    }
+
+    /**
+     * Reads the next frame
+     * @return the payload of the frame, or null if the end of the data has been reached
+     * @throws IllegalStateException if the frame is truncated or the checksum doesn't match
+     */
+    public IOAccess next() {
+        return inPlace ? nextInPlace(): nextSequential();
+    }
+
+    /**
+     * Validates and skips the next frame, without creating a slice of the source
+     * @return false if the end of the data has been reached
+     * @throws IllegalStateException if the frame is truncated or the checksum doesn't match
+     */
+    public boolean skip() {
+        if(!inPlace) return nextSequential() != null;
+
+        return validateInPlace();
+    }
+
+    private IOAccess nextInPlace() {
+        final long start = position;
+        if(!validateInPlace()) return null;
+
+        final long offset = start + HEADER_SIZE;
+        return source.slice(offset, position - offset);
+    }
+
+    /**
+     * Validates the frame at the current position and moves the position to the end of the frame
+     * @return false if the end of the data has been reached
+     */
+    private boolean validateInPlace() {
+        if(source.length() - position < HEADER_SIZE) return false;
+
+        final ByteBuffer header = view(position, HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+        final int length = header.getInt(0);
+        final int checksum = header.getInt(4);
+
+        if(length == 0 && checksum == 0) return false;
+        if(length < 0 || source.length() - position - HEADER_SIZE < length) {
+            throw new IllegalStateException("Truncated frame at offset %d".formatted(position));
+        }
+
+        final long offset = position + HEADER_SIZE;
+        validate(view(offset, length), checksum, position);
+
+        position = offset + length;
+        return true;
+    }
+
+    private IOAccess nextSequential() {
+        final byte[] header = source.read(HEADER_SIZE);
+        if(header.length < HEADER_SIZE) return null;
+
+        final ByteBuffer headerBuffer = ByteBuffer.wrap(header).order(ByteOrder.BIG_ENDIAN);
+        final int length = headerBuffer.getInt(0);
+        final int checksum = headerBuffer.getInt(4);
+
+        if(length == 0 && checksum == 0) return null;
+        if(length < 0) throw new IllegalStateException("Truncated frame at offset %d".formatted(position));
+
+        final byte[] payload = source.read(length);
+        if(payload.length < length) throw new IllegalStateException("Truncated frame at offset %d".formatted(position));
+
+        validate(ByteBuffer.wrap(payload), checksum, position);
+
+        position += HEADER_SIZE + length;
+        return new IOAccess(0, length, true, true, true, new IOBuffer(payload));
+    }
+
+    private ByteBuffer view(final long index, final int length) {
+        source.checkRead();
+        final ByteBuffer view = source.buffer(index, length);
+        return view != null ? view: ByteBuffer.wrap(source.get(index, length));
+    }
+
+    private void validate(final ByteBuffer payload, final int checksum, final long offset) {
+        if(IOFrameWriter.checksum(crc, lengthBuffer, payload) != checksum) {
+            throw new IllegalStateException("Frame checksum mismatch at offset %d".formatted(offset));
+        }
+    }
+
+    /**
+     * @return the offset of the next frame within the source, or the number of bytes consumed for sequential sources
+     */
+    public long position() {
+        return position;
+    }
+
+    public IOAccess getSource() {
+        return source;
+    }
+}
@@ -0,0 +1,153 @@
+package com.bethibande.memory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32C;
+
+/**
+ * Writes length-prefixed, checksummed frames to an access.
+ * Each frame is laid out as <code>[length: int][crc32c: int][payload]</code>, both header values are big-endian.
+ * The checksum covers the length field and the payload, see {@link IOFrameReader}. <br>
+ * Frames are collected in a staging buffer and handed to the target access using a single write call,
+ * once the staging buffer is full or {@link #flush()} is called. <br>
+ * <b>!! Thread-safety:</b> Frame writers are not thread-safe.
+ */
+@SuppressWarnings("unused")
+public class IOFrameWriter implements AutoCloseable {
+
+    public static final int HEADER_SIZE = 8;
+    public static final int DEFAULT_BATCH_SIZE = 64 * 1024;
+
+    private final IOAccess target;
+    private final byte[] batch;
+    private final ByteBuffer buffer;
+    private final ByteBuffer lengthBuffer = ByteBuffer.allocate(4).order(ByteOrder.BIG_ENDIAN);
+    private final CRC32C crc = new CRC32C();
+
+    private int frames = 0;
+
+    public IOFrameWriter(final IOAccess target) {
+        this(target, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param target the access frames are written to
+     * @param batchSize the size of the staging buffer in bytes, frames larger than the staging buffer are written directly
+     */
+    public IOFrameWriter(final IOAccess target, final int batchSize) {
+        if(batchSize < HEADER_SIZE) throw new IllegalArgumentException("The batch size must be at least %d bytes.".formatted(HEADER_SIZE));
+
+        this.target = target;
+        this.batch = new byte[batchSize];
+        this.buffer = ByteBuffer.wrap(batch).order(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Computes the checksum of a frame, the checksum covers the big-endian length field followed by the payload.
+     * The position of the given payload buffer is not modified.
+     */
+    static int checksum(final CRC32C crc, final ByteBuffer lengthBuffer, final ByteBuffer payload) {
+        crc.reset();
+        crc.update(lengthBuffer.clear().putInt(payload.remaining()).flip());
+        crc.update(payload.duplicate());
+        return (int) crc.getValue();
+    }
+
+    public void write(final byte[] payload) {
+        write(payload, 0, payload.length);
+    }
+
+    public void write(final byte[] payload, final int offset, final int length) {
+        write(ByteBuffer.wrap(payload, offset, length));
+    }
+
+    /**
+     * Writes the given region of an access as a frame. Off-heap and heap backed accesses are read
+     * without copying the payload to an intermediate array.
+     * @param payload the access to read the payload from, must be indexed
+     * @param index the offset of the payload within the access
+     * @param length the length of the payload
+     */
+    public void write(final IOAccess payload, final long index, final int length) {
+        payload.checkRead();
+        payload.checkIndexed();
+        payload.checkReadIndex(index, length);
+
+        final ByteBuffer view = payload.buffer(index, length);
+        write(view != null ? view: ByteBuffer.wrap(payload.get(index, length)));
+    }
+
+    /**
+     * Writes the remaining bytes of the given buffer as a frame, the position of the buffer is not modified.
+     */
+    public void write(final ByteBuffer payload) {
+        final int length = payload.remaining();
+        final int checksum = checksum(crc, lengthBuffer, payload);
+
+        if(buffer.remaining() < HEADER_SIZE + length) flush();
+
+        buffer.putInt(length);
+        buffer.putInt(checksum);
+
+        if(buffer.remaining() < length) {
+            flush();
+            writeDirect(payload.duplicate());
+            return;
+        }
+
+        buffer.put(payload.duplicate());
+        frames++;
+    }
+
+    /**
+     * Writes payloads which do not fit into the staging buffer
+     */
+    private void writeDirect(final ByteBuffer payload) {
+        if(payload.hasArray()) {
+            target.write(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+            return;
+        }
+
+        while(payload.hasRemaining()) {
+            final int chunk = Math.min(payload.remaining(), buffer.remaining());
+            buffer.put(payload.slice(payload.position(), chunk));
+            payload.position(payload.position() + chunk);
+            flush();
+        }
+    }
+
+    /**
+     * Writes all staged frames to the target access using a single write call.
+     * This does not flush the target access itself.
+     */
+    public void flush() {
+        if(buffer.position() == 0) return;
+
+        target.write(batch, 0, buffer.position());
+        buffer.clear();
+        frames = 0;
+    }
+
+    /**
+     * @return the number of frames staged but not yet written to the target access
+     */
+    public int pendingFrames() {
+        return frames;
+    }
+
+    /**
+     * @return the number of bytes staged but not yet written to the target access
+     */
+    public int pendingBytes() {
+        return buffer.position();
+    }
+
+    public IOAccess getTarget() {
+        return target;
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+}
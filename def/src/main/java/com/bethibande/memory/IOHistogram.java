@@ -0,0 +1,136 @@
+package com.bethibande.memory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A concurrent, log-bucketed histogram of non-negative values, e.g. latencies in nanoseconds.
+ * Every power of two is split into 16 linear sub-buckets, so recorded values are reported
+ * with a relative error below 6.25%, similar to an HdrHistogram with one significant digit. <br>
+ * Recording is wait-free, snapshots taken while values are recorded may be slightly inconsistent.
+ */
+@SuppressWarnings("unused")
+public class IOHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    static int bucket(final long value) {
+        if(value < SUB_BUCKETS) return (int) Math.max(0, value);
+
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * @return the smallest value counted by the given bucket
+     */
+    static long lowestValue(final int bucket) {
+        if(bucket < SUB_BUCKETS) return bucket;
+
+        final int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    }
+
+    /**
+     * @return the largest value counted by the given bucket
+     */
+    static long highestValue(final int bucket) {
+        return bucket + 1 >= BUCKETS ? Long.MAX_VALUE: lowestValue(bucket + 1) - 1;
+    }
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(final long value) {
+        counts.incrementAndGet(bucket(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+
+        long current;
+        while(value > (current = max.get()) && !max.compareAndSet(current, value));
+    }
+
+    public Snapshot snapshot() {
+        final long[] copy = new long[BUCKETS];
+        for(int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+
+        return new Snapshot(copy, count.get(), sum.get(), max.get());
+    }
+
+    public void reset() {
+        for(int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0L);
+        }
+
+        count.set(0L);
+        sum.set(0L);
+        max.set(0L);
+    }
+
+    /**
+     * An immutable copy of the histogram
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(final long[] counts, final long count, final long sum, final long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long max() {
+            return max;
+        }
+
+        public double mean() {
+            return count == 0 ? 0: (double) sum / count;
+        }
+
+        /**
+         * @param percentile the percentile within [0, 100]
+         * @return the highest value equivalent to the given percentile, or 0 if no values have been recorded
+         */
+        public long percentile(final double percentile) {
+            if(percentile < 0 || percentile > 100) throw new IllegalArgumentException("percentile must be within [0, 100].");
+
+            long total = 0;
+            for(long bucketCount : counts) {
+                total += bucketCount;
+            }
+            if(total == 0) return 0;
+
+            final long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+            long seen = 0;
+            for(int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if(seen >= target) return Math.min(highestValue(i), max);
+            }
+
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot[count=%d, mean=%.1f, p50=%d, p90=%d, p99=%d, p999=%d, max=%d]".formatted(
+                    count, mean(), percentile(50), percentile(90), percentile(99), percentile(99.9), max
+            );
+        }
+    }
+}
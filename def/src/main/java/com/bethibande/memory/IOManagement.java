@@ -0,0 +1,103 @@
+package com.bethibande.memory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+/**
+ * Registers the {@link IOStatisticsMXBean} with the platform MBean server. The bean is not registered automatically,
+ * call {@link #register()} once, e.g. during startup. The statistics are collected regardless of the registration,
+ * unless the system property {@code com.bethibande.memory.statistics} is set to false.
+ */
+@SuppressWarnings("unused")
+public final class IOManagement {
+
+    public static final String OBJECT_NAME = "com.bethibande.memory:type=IOStatistics";
+
+    private static final IOStatisticsMXBean STATISTICS = new Statistics();
+
+    private static boolean registered = false;
+
+    private IOManagement() { }
+
+    /**
+     * Registers the bean with the platform MBean server, if it hasn't been registered yet
+     */
+    public static synchronized void register() {
+        if(registered) return;
+
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(STATISTICS, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // registered by another class loader
+        } catch (JMException e) {
+            throw new RuntimeException(e);
+        }
+
+        registered = true;
+    }
+
+    /**
+     * @return the statistics, regardless of whether they have been registered
+     */
+    public static IOStatisticsMXBean statistics() {
+        return STATISTICS;
+    }
+
+    private static final class Statistics implements IOStatisticsMXBean {
+
+        @Override
+        public Map<String, Long> getNativeBytes() {
+            return IOStatistics.nativeBytes();
+        }
+
+        @Override
+        public long getTotalNativeBytes() {
+            return IOStatistics.nativeBytes().values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        @Override
+        public long getLiveAllocations() {
+            return IOStatistics.liveAllocations();
+        }
+
+        @Override
+        public long getSlices() {
+            return IOStatistics.slices();
+        }
+
+        @Override
+        public Map<String, Long> getBytesRead() {
+            return IOStatistics.bytesRead();
+        }
+
+        @Override
+        public Map<String, Long> getBytesWritten() {
+            return IOStatistics.bytesWritten();
+        }
+
+        @Override
+        public long getFileReadCalls() {
+            return IOStatistics.fileReads();
+        }
+
+        @Override
+        public long getFileWriteCalls() {
+            return IOStatistics.fileWrites();
+        }
+
+        @Override
+        public long getFileForceCalls() {
+            return IOStatistics.fileForces();
+        }
+
+        @Override
+        public void reset() {
+            IOStatistics.reset();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.bethibande.memory;
+
+/**
+ * Decodes a block written by {@link IOPackedInts}, directly from the access the block is stored in. <br>
+ * Single values are decoded using {@link #get(long)} without decoding the rest of the block,
+ * {@link #decode(long, long[], int, int)} decodes consecutive values reading every packed long only once. <br>
+ * <b>!! Note:</b> The block reads the access on every call, the access must not be released while the block is in use.
+ */
+@SuppressWarnings("unused")
+public class IOPackedBlock {
+
+    private final IOAccess source;
+    private final long index;
+    private final IOPackedInts.Encoding encoding;
+    private final int bitWidth;
+    private final long count;
+    private final long reference;
+    private final long checkpoints;
+    private final long values;
+    private final long mask;
+
+    /**
+     * Reads the header of a block
+     * @param source the access containing the block, must be indexed
+     * @param index the offset of the block within the access
+     */
+    public IOPackedBlock(final IOAccess source, final long index) {
+        source.checkRead();
+        source.checkIndexed();
+        source.checkReadIndex(index, IOPackedInts.HEADER_SIZE);
+
+        final IOPackedInts.Encoding[] encodings = IOPackedInts.Encoding.values();
+        final int encoding = source.get(index);
+        final int bitWidth = source.get(index + 1);
+        if(encoding < 0 || encoding >= encodings.length) throw new IllegalStateException("Unknown encoding %d.".formatted(encoding));
+        if(bitWidth < 0 || bitWidth > 64) throw new IllegalStateException("Invalid bit width %d.".formatted(bitWidth));
+
+        this.source = source;
+        this.index = index;
+        this.encoding = encodings[encoding];
+        this.bitWidth = bitWidth;
+        this.count = source.getInt(index + 4);
+        this.reference = source.getLong(index + 8);
+        this.checkpoints = index + IOPackedInts.HEADER_SIZE;
+        this.values = checkpoints + IOPackedInts.checkpoints(this.encoding, count) * 8;
+        this.mask = bitWidth == 0 ? 0L: -1L >>> (64 - bitWidth);
+
+        if(count < 0) throw new IllegalStateException("Invalid value count %d.".formatted(count));
+        source.checkReadIndex(index, size());
+    }
+
+    /**
+     * @return the size of the block in bytes
+     */
+    public long size() {
+        return values - index + IOPackedInts.packedSize(count, bitWidth);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public int bitWidth() {
+        return bitWidth;
+    }
+
+    public IOPackedInts.Encoding encoding() {
+        return encoding;
+    }
+
+    /**
+     * Reads the packed value at the given position, without applying the encoding
+     */
+    private long packed(final long position) {
+        if(bitWidth == 0) return 0L;
+
+        final long bit = position * bitWidth;
+        final long word = values + ((bit >>> 6) << 3);
+        final int shift = (int) (bit & 63);
+
+        long value = source.getLong(word) >>> shift;
+        if(shift + bitWidth > 64) value |= source.getLong(word + 8) << (64 - shift);
+
+        return value & mask;
+    }
+
+    /**
+     * Decodes the value at the given position
+     */
+    public long get(final long position) {
+        if(position < 0 || position >= count) throw new IndexOutOfBoundsException(position);
+
+        return switch(encoding) {
+            case PACKED -> packed(position);
+            case FRAME_OF_REFERENCE -> reference + packed(position);
+            case DELTA -> {
+                final long checkpoint = position / IOPackedInts.DELTA_CHECKPOINT;
+                long value = reference + source.getLong(checkpoints + checkpoint * 8);
+                for(long i = checkpoint * IOPackedInts.DELTA_CHECKPOINT + 1; i <= position; i++) {
+                    value += packed(i);
+                }
+                yield value;
+            }
+        };
+    }
+
+    /**
+     * Decodes consecutive values
+     * @param from the position of the first value
+     * @param dst the array to store the values in
+     */
+    public void decode(final long from, final long[] dst, final int offset, final int length) {
+        if(from < 0 || length < 0 || from + length > count) throw new IndexOutOfBoundsException(from + length);
+        if(offset < 0 || offset + length > dst.length) throw new IndexOutOfBoundsException(offset + length);
+        if(length == 0) return;
+
+        long bit = from * bitWidth;
+        long word = values + ((bit >>> 6) << 3);
+        int shift = (int) (bit & 63);
+        long current = bitWidth == 0 ? 0L: source.getLong(word);
+
+        long previous = encoding == IOPackedInts.Encoding.DELTA ? get(from): 0L;
+        for(int i = offset; i < offset + length; i++) {
+            long value = 0L;
+            if(bitWidth > 0) {
+                value = current >>> shift;
+                shift += bitWidth;
+                if(shift >= 64) {
+                    shift -= 64;
+                    word += 8;
+                    final boolean last = i == offset + length - 1;
+                    current = shift == 0 && last ? 0L: source.getLong(word);
+                    if(shift > 0) value |= current << (bitWidth - shift);
+                }
+                value &= mask;
+            }
+
+            dst[i] = switch(encoding) {
+                case PACKED -> value;
+                case FRAME_OF_REFERENCE -> reference + value;
+                case DELTA -> i == offset ? previous: (previous += value);
+            };
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.bethibande.memory;
+
+/**
+ * Encodes blocks of integers using a fixed number of bits per value, see {@link IOPackedBlock} to decode them. <br>
+ * A block is laid out as <code>[encoding: byte][bit width: byte][reserved: short][count: int][reference: long]
+ * [checkpoints: long * n][packed values: long * m]</code>, all values are written using the byte order of the access.
+ * Values are packed into consecutive longs, starting with the least significant bit. <br>
+ * Supported encodings are:
+ * <ul>
+ *     <li>{@link Encoding#PACKED}, values are stored as is, negative values require 64 bits</li>
+ *     <li>{@link Encoding#FRAME_OF_REFERENCE}, values are stored relative to the smallest value of the block</li>
+ *     <li>{@link Encoding#DELTA}, sorted values are stored as the difference to the previous value.
+ *     Every {@link #DELTA_CHECKPOINT} values the offset to the first value is stored as a checkpoint,
+ *     so decoding a single value decodes at most {@link #DELTA_CHECKPOINT} - 1 differences.</li>
+ * </ul>
+ */
+@SuppressWarnings("unused")
+public final class IOPackedInts {
+
+    public static final int HEADER_SIZE = 16;
+    public static final int DELTA_CHECKPOINT = 64;
+
+    public enum Encoding {
+        PACKED,
+        FRAME_OF_REFERENCE,
+        DELTA
+    }
+
+    private IOPackedInts() { }
+
+    /**
+     * @return the number of bits required to store the given unsigned value
+     */
+    public static int bitsRequired(final long unsigned) {
+        return 64 - Long.numberOfLeadingZeros(unsigned);
+    }
+
+    /**
+     * @return the number of bytes used to store count values of the given width, excluding the header and checkpoints
+     */
+    static long packedSize(final long count, final int bitWidth) {
+        return ((count * bitWidth + 63) >>> 6) << 3;
+    }
+
+    static long checkpoints(final Encoding encoding, final long count) {
+        return encoding == Encoding.DELTA ? (count + DELTA_CHECKPOINT - 1) / DELTA_CHECKPOINT: 0;
+    }
+
+    /**
+     * The bit width and reference of a block
+     */
+    private record Plan(int bitWidth, long reference) { }
+
+    private static Plan plan(final long[] values, final int offset, final int length, final Encoding encoding) {
+        if(offset < 0 || length < 0 || offset + length > values.length) throw new IndexOutOfBoundsException(offset + length);
+        if(length == 0) return new Plan(0, 0L);
+
+        return switch(encoding) {
+            case PACKED -> {
+                long bits = 0L;
+                for(int i = offset; i < offset + length; i++) {
+                    bits |= values[i];
+                }
+                yield new Plan(bitsRequired(bits), 0L);
+            }
+            case FRAME_OF_REFERENCE -> {
+                long min = Long.MAX_VALUE;
+                long max = Long.MIN_VALUE;
+                for(int i = offset; i < offset + length; i++) {
+                    min = Math.min(min, values[i]);
+                    max = Math.max(max, values[i]);
+                }
+                yield new Plan(bitsRequired(max - min), min);
+            }
+            case DELTA -> {
+                long bits = 0L;
+                for(int i = offset + 1; i < offset + length; i++) {
+                    if(values[i] < values[i - 1]) throw new IllegalArgumentException("Delta encoding requires sorted values, index %d is smaller than its predecessor.".formatted(i - offset));
+                    bits |= values[i] - values[i - 1];
+                }
+                yield new Plan(bitsRequired(bits), values[offset]);
+            }
+        };
+    }
+
+    /**
+     * @return the number of bytes required to encode the given values
+     */
+    public static long encodedSize(final long[] values, final int offset, final int length, final Encoding encoding) {
+        final Plan plan = plan(values, offset, length, encoding);
+        return HEADER_SIZE + checkpoints(encoding, length) * 8 + packedSize(length, plan.bitWidth());
+    }
+
+    /**
+     * Returns the encoding requiring the least amount of bytes, delta encoding is only considered for sorted values
+     */
+    public static Encoding smallestEncoding(final long[] values, final int offset, final int length) {
+        Encoding best = Encoding.PACKED;
+        long size = encodedSize(values, offset, length, Encoding.PACKED);
+
+        final long frameOfReference = encodedSize(values, offset, length, Encoding.FRAME_OF_REFERENCE);
+        if(frameOfReference < size) {
+            best = Encoding.FRAME_OF_REFERENCE;
+            size = frameOfReference;
+        }
+
+        for(int i = offset + 1; i < offset + length; i++) {
+            if(values[i] < values[i - 1]) return best;
+        }
+
+        return encodedSize(values, offset, length, Encoding.DELTA) < size ? Encoding.DELTA: best;
+    }
+
+    public static long encode(final IOAccess target, final long index, final long[] values, final Encoding encoding) {
+        return encode(target, index, values, 0, values.length, encoding);
+    }
+
+    /**
+     * Encodes the given values into a block
+     * @param target the access to write the block to, must be indexed
+     * @param index the offset of the block within the access
+     * @return the size of the block in bytes, see {@link #encodedSize(long[], int, int, Encoding)}
+     * @throws IllegalArgumentException if delta encoding is used and the values are not sorted
+     */
+    public static long encode(final IOAccess target,
+                              final long index,
+                              final long[] values,
+                              final int offset,
+                              final int length,
+                              final Encoding encoding) {
+        final Plan plan = plan(values, offset, length, encoding);
+        final long checkpoints = checkpoints(encoding, length);
+        final long size = HEADER_SIZE + checkpoints * 8 + packedSize(length, plan.bitWidth());
+
+        target.checkWrite();
+        target.checkIndexed();
+        target.checkWriteIndex(index, size);
+
+        target.set((byte) encoding.ordinal(), index);
+        target.set((byte) plan.bitWidth(), index + 1);
+        target.setShort((short) 0, index + 2);
+        target.setInt(length, index + 4);
+        target.setLong(plan.reference(), index + 8);
+
+        for(long i = 0; i < checkpoints; i++) {
+            target.setLong(values[offset + (int) (i * DELTA_CHECKPOINT)] - plan.reference(), index + HEADER_SIZE + i * 8);
+        }
+
+        final int bitWidth = plan.bitWidth();
+        if(bitWidth == 0) return size;
+
+        final long mask = -1L >>> (64 - bitWidth);
+        long position = index + HEADER_SIZE + checkpoints * 8;
+        long word = 0L;
+        int used = 0;
+        for(int i = offset; i < offset + length; i++) {
+            final long value = mask & switch(encoding) {
+                case PACKED -> values[i];
+                case FRAME_OF_REFERENCE -> values[i] - plan.reference();
+                case DELTA -> i == offset ? 0L: values[i] - values[i - 1];
+            };
+
+            word |= value << used;
+            used += bitWidth;
+            if(used >= 64) {
+                target.setLong(word, position);
+                position += 8;
+                used -= 64;
+                word = used == 0 ? 0L: value >>> (bitWidth - used);
+            }
+        }
+        if(used > 0) target.setLong(word, position);
+
+        return size;
+    }
+}
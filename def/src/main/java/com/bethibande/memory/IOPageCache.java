@@ -0,0 +1,457 @@
+package com.bethibande.memory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A page cache in front of a file. Fixed-size pages of the file are held in a single off-heap slab,
+ * allocated using {@link IOAccess#unsafe(long)}. Pages are evicted using the CLOCK algorithm,
+ * dirty pages are written back when evicted or when calling {@link #flush()}. <br>
+ * Pages can be pinned using {@link #pin(long)}, pinned pages are never evicted.
+ * Use {@link #access()} to read/write the file through the cache using the regular IOAccess methods. <br>
+ * <b>!! Thread-safety:</b> The cache may be used by multiple threads, lookups of cached pages are lock-free,
+ * loading pages is serialized. Concurrent writes to the same bytes are not synchronized.
+ */
+@SuppressWarnings("unused")
+public class IOPageCache implements AutoCloseable {
+
+    private static final int EVICTING = -1;
+
+    /**
+     * A snapshot of the cache statistics
+     */
+    public record Stats(long hits, long misses, long evictions, long writeBacks) {
+
+        public double hitRatio() {
+            final long total = hits + misses;
+            return total == 0 ? 0.0d: (double) hits / total;
+        }
+
+    }
+
+    /**
+     * A pinned page, the page will not be evicted until it is unpinned.
+     * The page must not be used after calling {@link #unpin()}.
+     */
+    public final class Page implements AutoCloseable {
+
+        private final int frame;
+
+        private Page(final int frame) {
+            this.frame = frame;
+        }
+
+        /**
+         * @return a slice of the cache slab containing the page data
+         */
+        public IOAccess data() {
+            return frames[frame];
+        }
+
+        /**
+         * @return the number of the page within the file
+         */
+        public long number() {
+            return framePage.get(frame);
+        }
+
+        /**
+         * Marks the page as modified, modified pages are written back to the file before they're evicted.
+         * Only bytes within the file are written back, see {@link #markDirty(int)} to extend the file.
+         */
+        public void markDirty() {
+            if(!writable) throw new IllegalAccessError("Page cache has no write access.");
+            dirty.set(frame, 1);
+        }
+
+        /**
+         * Marks the page as modified and extends the file to include the first length bytes of the page
+         */
+        public void markDirty(final int length) {
+            if(length < 0 || length > pageSize) throw new IndexOutOfBoundsException(length);
+
+            fileSize.accumulateAndGet(framePage.get(frame) * pageSize + length, Math::max);
+            markDirty();
+        }
+
+        public void unpin() {
+            pins.decrementAndGet(frame);
+        }
+
+        @Override
+        public void close() {
+            unpin();
+        }
+    }
+
+    /**
+     * Opens a page cache
+     * @param file the file to cache
+     * @param pageSize the size of a page in bytes
+     * @param pageCount the number of pages held in memory
+     * @param write whether the file may be modified
+     */
+    public static IOPageCache open(final Path file,
+                                   final int pageSize,
+                                   final int pageCount,
+                                   final boolean write) throws IOException {
+        if(pageSize <= 0 || pageCount <= 0) throw new IllegalArgumentException("Page size and count must be positive.");
+
+        final FileChannel channel = write
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE)
+                : FileChannel.open(file, StandardOpenOption.READ);
+
+        return new IOPageCache(channel, pageSize, pageCount, write);
+    }
+
+    private final FileChannel channel;
+    private final int pageSize;
+    private final int pageCount;
+    private final boolean writable;
+
+    private final UnsafeIOAccess slab;
+    private final IOAccess[] frames;
+    /**
+     * Views of the frames used for file I/O, null if the slab cannot be viewed, see {@link #scratch}
+     */
+    private final ByteBuffer[] buffers;
+    /**
+     * Copies frames from/to the file if the slab cannot be viewed as buffers, e.g. if native access is disabled.
+     * Only used while holding the monitor of the cache.
+     */
+    private final ByteBuffer scratch;
+    private final Page[] pages;
+
+    private final ConcurrentHashMap<Long, Integer> table = new ConcurrentHashMap<>();
+    private final AtomicLongArray framePage;
+    private final AtomicIntegerArray pins;
+    private final AtomicIntegerArray dirty;
+    private final AtomicIntegerArray referenced;
+    private final AtomicLong fileSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder writeBacks = new LongAdder();
+
+    private int hand = 0;
+    private volatile boolean closed = false;
+
+    private IOPageCache(final FileChannel channel,
+                        final int pageSize,
+                        final int pageCount,
+                        final boolean writable) throws IOException {
+        this.channel = channel;
+        this.pageSize = pageSize;
+        this.pageCount = pageCount;
+        this.writable = writable;
+
+        this.slab = UnsafeIOAccess.allocate((long) pageSize * pageCount);
+        this.frames = new IOAccess[pageCount];
+        this.buffers = new ByteBuffer[pageCount];
+        this.pages = new Page[pageCount];
+        this.framePage = new AtomicLongArray(pageCount);
+        this.pins = new AtomicIntegerArray(pageCount);
+        this.dirty = new AtomicIntegerArray(pageCount);
+        this.referenced = new AtomicIntegerArray(pageCount);
+        this.fileSize = new AtomicLong(channel.size());
+
+        for(int i = 0; i < pageCount; i++) {
+            final long offset = (long) i * pageSize;
+            this.frames[i] = slab.slice(offset, pageSize);
+            this.buffers[i] = slab.sharedBuffer(offset, pageSize);
+            this.pages[i] = new Page(i);
+            this.framePage.set(i, -1L);
+        }
+
+        this.scratch = this.buffers[0] == null ? ByteBuffer.allocate(pageSize): null;
+    }
+
+    private void checkOpen() {
+        if(closed) throw new IllegalStateException("The page cache has already been closed.");
+    }
+
+    /**
+     * Pins the given page, loading it from the file if it isn't cached
+     * @param page the number of the page, the page starts at page * pageSize within the file
+     * @throws IllegalStateException if all pages are pinned
+     */
+    public Page pin(final long page) {
+        checkOpen();
+        if(page < 0) throw new IndexOutOfBoundsException(page);
+
+        final Integer cached = table.get(page);
+        if(cached != null && tryPin(cached, page)) {
+            hits.increment();
+            return pages[cached];
+        }
+
+        return load(page);
+    }
+
+    private boolean tryPin(final int frame, final long page) {
+        int count;
+        do {
+            count = pins.get(frame);
+            if(count == EVICTING) return false;
+        } while(!pins.compareAndSet(frame, count, count + 1));
+
+        if(framePage.get(frame) != page) {
+            pins.decrementAndGet(frame);
+            return false;
+        }
+
+        referenced.set(frame, 1);
+        return true;
+    }
+
+    private synchronized Page load(final long page) {
+        final Integer cached = table.get(page);
+        if(cached != null && tryPin(cached, page)) {
+            hits.increment();
+            return pages[cached];
+        }
+
+        misses.increment();
+
+        final int frame = evict();
+        try {
+            read(frame, page);
+        } catch (IOException e) {
+            pins.set(frame, 0);
+            throw new RuntimeException(e);
+        }
+
+        framePage.set(frame, page);
+        referenced.set(frame, 1);
+        table.put(page, frame);
+        pins.set(frame, 1);
+
+        return pages[frame];
+    }
+
+    /**
+     * Finds an unpinned frame using the CLOCK algorithm, writes it back if dirty and removes it from the page table.
+     * The returned frame is locked for eviction. Must be called while holding the monitor of the cache.
+     */
+    private int evict() {
+        for(int i = 0; i < pageCount * 2; i++) {
+            final int frame = hand;
+            hand = (hand + 1) % pageCount;
+
+            if(pins.get(frame) != 0) continue;
+            if(referenced.getAndSet(frame, 0) != 0) continue;
+            if(!pins.compareAndSet(frame, 0, EVICTING)) continue;
+
+            final long page = framePage.get(frame);
+            if(page >= 0) {
+                try {
+                    writeBack(frame);
+                } catch (IOException e) {
+                    pins.set(frame, 0);
+                    throw new RuntimeException(e);
+                }
+                table.remove(page);
+                framePage.set(frame, -1L);
+                evictions.increment();
+            }
+
+            return frame;
+        }
+
+        throw new IllegalStateException("All pages of the cache are pinned.");
+    }
+
+    private void read(final int frame, final long page) throws IOException {
+        final ByteBuffer buffer = (scratch != null ? scratch: buffers[frame]).clear();
+        final long position = page * pageSize;
+
+        while(buffer.hasRemaining()) {
+            final int read = channel.read(buffer, position + buffer.position());
+            IOStatistics.fileRead();
+            if(read < 0) break;
+        }
+
+        if(scratch != null) slab.copyFromHeap(scratch.array(), 0, (long) frame * pageSize, buffer.position());
+        if(buffer.hasRemaining()) slab.fill((long) frame * pageSize + buffer.position(), buffer.remaining(), (byte) 0);
+    }
+
+    private void writeBack(final int frame) throws IOException {
+        if(dirty.getAndSet(frame, 0) == 0) return;
+
+        final long position = framePage.get(frame) * pageSize;
+        final int length = (int) Math.min(pageSize, Math.max(0L, fileSize.get() - position));
+        final ByteBuffer buffer = (scratch != null ? scratch: buffers[frame]).clear().limit(length);
+        if(scratch != null) slab.copyToHeap((long) frame * pageSize, scratch.array(), 0, length);
+
+        while(buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+            IOStatistics.fileWrite();
+        }
+        writeBacks.increment();
+    }
+
+    /**
+     * Reads bytes through the cache
+     * @param position the position within the file
+     */
+    public void read(final long position, final byte[] dst, final int off, final int len) {
+        int done = 0;
+        while(done < len) {
+            final long current = position + done;
+            final int offset = (int) (current % pageSize);
+            final int chunk = Math.min(len - done, pageSize - offset);
+
+            final Page page = pin(current / pageSize);
+            try {
+                slab.copyToHeap((long) page.frame * pageSize + offset, dst, off + done, chunk);
+            } finally {
+                page.unpin();
+            }
+
+            done += chunk;
+        }
+    }
+
+    /**
+     * Writes bytes through the cache, the bytes are written to the file when the pages are evicted or flushed
+     * @param position the position within the file
+     */
+    public void write(final long position, final byte[] src, final int off, final int len) {
+        if(!writable) throw new IllegalAccessError("Page cache has no write access.");
+
+        int done = 0;
+        while(done < len) {
+            final long current = position + done;
+            final int offset = (int) (current % pageSize);
+            final int chunk = Math.min(len - done, pageSize - offset);
+
+            final Page page = pin(current / pageSize);
+            try {
+                slab.copyFromHeap(src, off + done, (long) page.frame * pageSize + offset, chunk);
+                page.markDirty(offset + chunk);
+            } finally {
+                page.unpin();
+            }
+
+            done += chunk;
+        }
+    }
+
+    public byte get(final long position) {
+        final Page page = pin(position / pageSize);
+        try {
+            return slab.get((long) page.frame * pageSize + position % pageSize);
+        } finally {
+            page.unpin();
+        }
+    }
+
+    public void set(final byte b, final long position) {
+        if(!writable) throw new IllegalAccessError("Page cache has no write access.");
+
+        final Page page = pin(position / pageSize);
+        try {
+            slab.set(b, (long) page.frame * pageSize + position % pageSize);
+            page.markDirty((int) (position % pageSize) + 1);
+        } finally {
+            page.unpin();
+        }
+    }
+
+    /**
+     * Writes all dirty pages back to the file, this does not force the changes to the storage device
+     */
+    public synchronized void flush() {
+        checkOpen();
+
+        try {
+            for(int i = 0; i < pageCount; i++) {
+                if(framePage.get(i) >= 0) writeBack(i);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Writes all dirty pages back to the file and forces the changes to the storage device
+     */
+    public void force() {
+        flush();
+
+        try {
+            channel.force(false);
+            IOStatistics.fileForce();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Creates an indexed access reading/writing the file through this cache. Releasing the access closes the cache.
+     */
+    public IOAccess access() {
+        return new IOAccess(0, -1, true, writable, true, new IOCachedFile(this));
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), writeBacks.sum());
+    }
+
+    public void resetStats() {
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+        writeBacks.reset();
+    }
+
+    /**
+     * @return the size of the file, including bytes written to the cache but not yet written back
+     */
+    public long fileSize() {
+        return fileSize.get();
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public boolean isWritable() {
+        return writable;
+    }
+
+    /**
+     * Writes back all dirty pages, closes the file and frees the slab
+     */
+    @Override
+    public synchronized void close() {
+        if(closed) return;
+        if(writable) flush();
+
+        closed = true;
+        table.clear();
+        for(IOAccess frame : frames) {
+            frame.release();
+        }
+        slab.free();
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.bethibande.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Loads the pages of a memory mapped file ahead of a sequential reader using a background thread,
+ * so the reader doesn't pay a page fault per page. The prefetcher keeps up to {@code window} bytes
+ * ahead of the position of the reader loaded, loading them in steps of {@code step} bytes. <br>
+ * Use {@link #pretouch(IOAccess, int)} to load a whole mapping in parallel, e.g. at startup. <br>
+ * <b>!! Note:</b> the mapping must be accessible by any thread, see {@link IOAccess#map(java.nio.file.Path, long, long, java.nio.channels.FileChannel.MapMode, boolean)}.
+ */
+@SuppressWarnings("unused")
+public class IOPrefetcher implements AutoCloseable {
+
+    public static final long DEFAULT_WINDOW = 8L * 1024 * 1024;
+    public static final long DEFAULT_STEP = 1024 * 1024;
+
+    private static final long PAGE_SIZE = 4096;
+    private static final long IDLE_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    /**
+     * @param prefetchedBytes the number of bytes loaded by the prefetcher
+     * @param loads the number of load calls
+     * @param loadNanos the time spent loading pages
+     * @param stalls the number of times the reader was found ahead of the prefetched region
+     */
+    public record Stats(long prefetchedBytes, long loads, long loadNanos, long stalls) {
+
+        /**
+         * @return the load throughput in bytes per second
+         */
+        public double bytesPerSecond() {
+            return loadNanos == 0 ? 0: prefetchedBytes * 1e9 / loadNanos;
+        }
+    }
+
+    /**
+     * @param bytes the number of bytes loaded
+     * @param threads the number of threads used
+     * @param nanos the wall-clock time of the pretouch
+     */
+    public record Pretouch(long bytes, int threads, long nanos) {
+
+        /**
+         * @return the load throughput in bytes per second
+         */
+        public double bytesPerSecond() {
+            return nanos == 0 ? 0: bytes * 1e9 / nanos;
+        }
+    }
+
+    /**
+     * Loads the whole access using the given number of threads, each thread loads a page aligned part of the mapping.
+     * This blocks until all pages have been loaded.
+     * @param access a memory mapped file, accessible by any thread
+     * @return the timing of the pretouch
+     */
+    public static Pretouch pretouch(final IOAccess access, final int threads) {
+        if(threads <= 0) throw new IllegalArgumentException("threads must be positive.");
+        checkShared(access);
+
+        final long length = access.length();
+        final long start = System.nanoTime();
+        if(threads == 1) {
+            access.load();
+            return new Pretouch(length, 1, System.nanoTime() - start);
+        }
+
+        final long share = (length + threads - 1) / threads;
+        final long part = Math.max(PAGE_SIZE, (share + PAGE_SIZE - 1) / PAGE_SIZE * PAGE_SIZE);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "IOPrefetcher-pretouch");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            final List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for(long offset = 0; offset < length; offset += part) {
+                final long from = offset;
+                final long size = Math.min(part, length - offset);
+                futures.add(CompletableFuture.runAsync(() -> access.load(from, size), executor));
+            }
+
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } finally {
+            executor.shutdown();
+        }
+
+        return new Pretouch(length, threads, System.nanoTime() - start);
+    }
+
+    private static void checkShared(final IOAccess access) {
+        if(access.isOwned()) throw new IllegalArgumentException("The mapping must be accessible by any thread.");
+    }
+
+    /**
+     * Starts a prefetcher following the index of the given access
+     */
+    public static IOPrefetcher follow(final IOAccess access) {
+        return new IOPrefetcher(access, access::index, DEFAULT_WINDOW, DEFAULT_STEP);
+    }
+
+    private final IOAccess access;
+    private final LongSupplier position;
+    private final long window;
+    private final long step;
+    private final Thread thread;
+
+    private final AtomicLong prefetchedBytes = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadNanos = new AtomicLong();
+    private final AtomicLong stalls = new AtomicLong();
+
+    private volatile boolean running = true;
+    private long loaded = 0;
+
+    /**
+     * Creates and starts a prefetcher
+     * @param access a memory mapped file, accessible by any thread
+     * @param position supplies the current position of the reader, e.g. the index of an access
+     * @param window the number of bytes ahead of the reader kept loaded
+     * @param step the number of bytes loaded at once
+     */
+    public IOPrefetcher(final IOAccess access, final LongSupplier position, final long window, final long step) {
+        if(window <= 0 || step <= 0) throw new IllegalArgumentException("window and step must be positive.");
+        checkShared(access);
+
+        this.access = access;
+        this.position = position;
+        this.window = window;
+        this.step = Math.max(PAGE_SIZE, step / PAGE_SIZE * PAGE_SIZE);
+
+        this.thread = new Thread(this::run, "IOPrefetcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    private void run() {
+        final long length = access.length();
+        while(running) {
+            final long current = Math.max(0, position.getAsLong());
+            if(current > loaded) {
+                stalls.incrementAndGet();
+                loaded = current / PAGE_SIZE * PAGE_SIZE;
+            }
+
+            final long target = Math.min(length, current + window);
+            if(loaded >= target) {
+                if(loaded >= length) break;
+                LockSupport.parkNanos(IDLE_NANOS);
+                continue;
+            }
+
+            final long size = Math.min(step, target - loaded);
+            final long start = System.nanoTime();
+            try {
+                access.load(loaded, size);
+            } catch (IllegalStateException e) {
+                // the mapping has been released
+                break;
+            }
+
+            loadNanos.addAndGet(System.nanoTime() - start);
+            loads.incrementAndGet();
+            prefetchedBytes.addAndGet(size);
+            loaded += size;
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(prefetchedBytes.get(), loads.get(), loadNanos.get(), stalls.get());
+    }
+
+    /**
+     * @return whether the prefetcher is still running, the prefetcher stops once the end of the mapping has been loaded
+     */
+    public boolean isRunning() {
+        return thread.isAlive();
+    }
+
+    /**
+     * Stops the prefetcher and waits for the background thread to exit,
+     * must be called before releasing the mapping
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
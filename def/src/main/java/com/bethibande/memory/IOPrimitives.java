@@ -0,0 +1,106 @@
+package com.bethibande.memory;
+
+import sun.misc.Unsafe;
+
+import java.nio.ByteOrder;
+
+/**
+ * Reads and writes multi-byte values at native addresses, in native or swapped byte order.
+ * Accesses choose the implementation once when the byte order is set, see {@link #of(ByteOrder)},
+ * so accesses in native byte order never check the byte order.
+ */
+abstract class IOPrimitives {
+
+    private static final Unsafe UNSAFE;
+
+    static {
+        try {
+            UNSAFE = UnsafeHelper.getUnsafe();
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static final IOPrimitives NATIVE = new IOPrimitives() {
+        @Override
+        short getShort(final long address) {
+            return UNSAFE.getShort(address);
+        }
+
+        @Override
+        int getInt(final long address) {
+            return UNSAFE.getInt(address);
+        }
+
+        @Override
+        long getLong(final long address) {
+            return UNSAFE.getLong(address);
+        }
+
+        @Override
+        void putShort(final long address, final short value) {
+            UNSAFE.putShort(address, value);
+        }
+
+        @Override
+        void putInt(final long address, final int value) {
+            UNSAFE.putInt(address, value);
+        }
+
+        @Override
+        void putLong(final long address, final long value) {
+            UNSAFE.putLong(address, value);
+        }
+    };
+
+    static final IOPrimitives SWAPPED = new IOPrimitives() {
+        @Override
+        short getShort(final long address) {
+            return Short.reverseBytes(UNSAFE.getShort(address));
+        }
+
+        @Override
+        int getInt(final long address) {
+            return Integer.reverseBytes(UNSAFE.getInt(address));
+        }
+
+        @Override
+        long getLong(final long address) {
+            return Long.reverseBytes(UNSAFE.getLong(address));
+        }
+
+        @Override
+        void putShort(final long address, final short value) {
+            UNSAFE.putShort(address, Short.reverseBytes(value));
+        }
+
+        @Override
+        void putInt(final long address, final int value) {
+            UNSAFE.putInt(address, Integer.reverseBytes(value));
+        }
+
+        @Override
+        void putLong(final long address, final long value) {
+            UNSAFE.putLong(address, Long.reverseBytes(value));
+        }
+    };
+
+    /**
+     * @return the implementation reading/writing values in the given byte order
+     */
+    static IOPrimitives of(final ByteOrder order) {
+        return order == ByteOrder.nativeOrder() ? NATIVE: SWAPPED;
+    }
+
+    abstract short getShort(long address);
+
+    abstract int getInt(long address);
+
+    abstract long getLong(long address);
+
+    abstract void putShort(long address, short value);
+
+    abstract void putInt(long address, int value);
+
+    abstract void putLong(long address, long value);
+}
@@ -0,0 +1,164 @@
+package com.bethibande.memory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the content of an access as a sequence of chunks, honoring the demand of the subscriber. <br>
+ * Memory backed accesses, e.g. off-heap or mapped accesses, are published as zero-copy slices.
+ * Other accesses, e.g. streams, are read chunk by chunk into heap backed accesses, no data is read
+ * before it has been requested. <br>
+ * Slices of accesses owned by a thread are owned by the thread publishing them, which is the thread
+ * calling {@link Flow.Subscription#request(long)} unless an executor is used. <br>
+ * Slices of reference counted accesses, see {@link IOAccess#retain()}, hold a reference to the memory of the source.
+ * The subscriber owns these chunks and must release them once it is done with them, {@link IOSubscriber} does so
+ * after writing a chunk. Other chunks share the memory of the source without a reference and must not be released. <br>
+ * The publisher supports a single subscriber.
+ */
+@SuppressWarnings("unused")
+public class IOPublisher implements Flow.Publisher<IOAccess> {
+
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    private final IOAccess source;
+    private final long offset;
+    private final long length;
+    private final int chunkSize;
+    private final Executor executor;
+    private final boolean slicing;
+
+    private final AtomicBoolean subscribed = new AtomicBoolean(false);
+
+    public IOPublisher(final IOAccess source) {
+        this(source, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Publishes the remaining bytes of the source, the source must either have a known length or not be indexed,
+     * e.g. a stream, in which case it is published until end-of-stream.
+     */
+    public IOPublisher(final IOAccess source, final int chunkSize) {
+        this(source, source.isIndexed() ? source.index(): 0, source.isIndexed() ? source.remaining(): -1, chunkSize, Runnable::run);
+    }
+
+    /**
+     * @param source the access to publish
+     * @param offset the index of the first byte to publish, ignored if the source is not indexed
+     * @param length the number of bytes to publish, or -1 to publish until end-of-stream if the source is not indexed
+     * @param chunkSize the maximum size of a published chunk
+     * @param executor the executor used to publish chunks, {@code Runnable::run} publishes chunks on the thread requesting them
+     */
+    public IOPublisher(final IOAccess source,
+                       final long offset,
+                       final long length,
+                       final int chunkSize,
+                       final Executor executor) {
+        if(chunkSize <= 0) throw new IllegalArgumentException("The chunk size must be positive.");
+        if(source.isIndexed() && (length < 0 || source.length() < 0)) {
+            throw new IllegalArgumentException("Indexed accesses can only be published with a known length.");
+        }
+
+        this.source = source;
+        this.offset = offset;
+        this.length = length;
+        this.chunkSize = chunkSize;
+        this.executor = executor;
+        this.slicing = source.isIndexed() && (source.accessible() == null || source.accessible().canSlice());
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super IOAccess> subscriber) {
+        if(!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(final long n) { }
+
+                @Override
+                public void cancel() { }
+            });
+            subscriber.onError(new IllegalStateException("IOPublisher only supports a single subscriber."));
+            return;
+        }
+
+        subscriber.onSubscribe(new Subscription(subscriber));
+    }
+
+    private final class Subscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super IOAccess> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private long position = 0;
+        private volatile boolean done = false;
+
+        private Subscription(final Flow.Subscriber<? super IOAccess> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(final long n) {
+            if(done) return;
+            if(n <= 0) {
+                done = true;
+                subscriber.onError(new IllegalArgumentException("Demand must be positive, see Reactive Streams rule 3.9."));
+                return;
+            }
+
+            demand.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE: current + add);
+            if(wip.getAndIncrement() == 0) executor.execute(this::drain);
+        }
+
+        @Override
+        public void cancel() {
+            done = true;
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                while(!done && demand.get() > 0) {
+                    final IOAccess chunk;
+                    try {
+                        chunk = next();
+                    } catch (RuntimeException e) {
+                        done = true;
+                        subscriber.onError(e);
+                        return;
+                    }
+
+                    if(chunk == null) {
+                        done = true;
+                        subscriber.onComplete();
+                        return;
+                    }
+
+                    demand.decrementAndGet();
+                    subscriber.onNext(chunk);
+                }
+
+                missed = wip.addAndGet(-missed);
+            } while(missed != 0);
+        }
+
+        private IOAccess next() {
+            if(length >= 0 && position >= length) return null;
+
+            final int size = (int) (length >= 0 ? Math.min(chunkSize, length - position): chunkSize);
+            if(slicing) {
+                final IOAccess slice = source.slice(offset + position, size);
+                position += size;
+                return slice;
+            }
+
+            final byte[] data = source.isIndexed() ? source.get(offset + position, size): source.read(size);
+            if(data.length == 0) return null;
+
+            position += data.length;
+            return new IOAccess(0, data.length, true, true, true, new IOBuffer(data));
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package com.bethibande.memory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Serializes and deserializes records using the primitive read/write methods of an access. <br>
+ * The codec of a record class is built once using method handles and cached, see {@link #of(Class)}.
+ * Records which are not public or are declared in packages not exported to this library
+ * require a lookup with access to the record, see {@link #of(Class, MethodHandles.Lookup)}.
+ * Reading and writing records only invokes the composed method handles, no reflection is used. <br>
+ * Components are written in declaration order, supported component types are:
+ * <ul>
+ *     <li>primitives, written using the matching write method, chars are written as shorts</li>
+ *     <li>{@link String}, written using {@link IOAccess#writeStringShort(String, java.nio.charset.Charset)} with UTF-8</li>
+ *     <li>{@link UUID}, written using {@link IOAccess#writeUUID(UUID)}</li>
+ *     <li>enums, written as the int ordinal</li>
+ *     <li>primitive arrays, written as an int length followed by the elements</li>
+ *     <li>records, written using their own codec</li>
+ * </ul>
+ * Components of reference types are prefixed by a boolean, indicating whether the value is non-null.
+ * @param <R> the record type
+ */
+@SuppressWarnings("unused")
+public final class IORecordCodec<R extends Record> {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /**
+     * The codec of every record class, built by the first call to one of the of methods
+     */
+    private static final ClassValue<AtomicReference<IORecordCodec<?>>> CODECS = new ClassValue<>() {
+        @Override
+        protected AtomicReference<IORecordCodec<?>> computeValue(final Class<?> type) {
+            return new AtomicReference<>();
+        }
+    };
+
+    /**
+     * @return the cached codec of the given record class
+     * @throws IllegalArgumentException if the class isn't a record, the record cannot be accessed by this library
+     *                                  or it has components of unsupported types
+     */
+    public static <R extends Record> IORecordCodec<R> of(final Class<R> type) {
+        return of(type, LOOKUP);
+    }
+
+    /**
+     * Returns the cached codec of the given record class, the lookup is used to access the canonical constructor
+     * and the accessors of the record and all nested records if the codec hasn't been built yet,
+     * e.g. <code>IORecordCodec.of(Point.class, MethodHandles.lookup())</code> for a package-private record.
+     * @param lookup a lookup with access to the record
+     * @throws IllegalArgumentException if the class isn't a record, the lookup cannot access the record
+     *                                  or it has components of unsupported types
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <R extends Record> IORecordCodec<R> of(final Class<R> type, final MethodHandles.Lookup lookup) {
+        if(!type.isRecord()) throw new IllegalArgumentException("%s is not a record.".formatted(type.getName()));
+
+        final AtomicReference<IORecordCodec<?>> cached = CODECS.get(type);
+        final IORecordCodec<?> codec = cached.get();
+        if(codec != null) return (IORecordCodec<R>) codec;
+
+        cached.compareAndSet(null, new IORecordCodec(type, lookup));
+        return (IORecordCodec<R>) cached.get();
+    }
+
+    private final Class<R> type;
+    /**
+     * (IOAccess, Object) void
+     */
+    private final MethodHandle writer;
+    /**
+     * (IOAccess) Object
+     */
+    private final MethodHandle reader;
+
+    private IORecordCodec(final Class<R> type, final MethodHandles.Lookup lookup) {
+        this.type = type;
+
+        try {
+            final RecordComponent[] components = type.getRecordComponents();
+            final Class<?>[] parameters = new Class<?>[components.length];
+
+            MethodHandle writer = MethodHandles.empty(MethodType.methodType(void.class, IOAccess.class, type));
+            for(int i = components.length - 1; i >= 0; i--) {
+                final RecordComponent component = components[i];
+                parameters[i] = component.getType();
+
+                final MethodHandle accessor = lookup.unreflect(component.getAccessor());
+                final MethodHandle write = MethodHandles.filterArguments(writer(component.getType(), lookup), 1, accessor);
+                writer = MethodHandles.foldArguments(writer, write);
+            }
+
+            // (parameters..., IOAccess) R, every fold reads the last missing component before invoking the next handle,
+            // so the components are read in declaration order
+            MethodHandle reader = MethodHandles.dropArguments(
+                    lookup.findConstructor(type, MethodType.methodType(void.class, parameters)),
+                    components.length,
+                    IOAccess.class
+            );
+            for(int i = components.length - 1; i >= 0; i--) {
+                reader = MethodHandles.foldArguments(reader, i, reader(parameters[i], lookup));
+            }
+
+            this.reader = reader.asType(MethodType.methodType(Object.class, IOAccess.class));
+            this.writer = writer.asType(MethodType.methodType(void.class, IOAccess.class, Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access the components of %s.".formatted(type.getName()), e);
+        }
+    }
+
+    /**
+     * Writes the record starting at the current index of the access
+     */
+    public void write(final IOAccess access, final R record) {
+        try {
+            writer.invokeExact(access, (Object) record);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Reads a record starting at the current index of the access
+     */
+    @SuppressWarnings("unchecked")
+    public R read(final IOAccess access) {
+        try {
+            return (R) (Object) reader.invokeExact(access);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public Class<R> getType() {
+        return type;
+    }
+
+    //-------------------------------------------------------------------------------------------
+    // Component handles
+    //-------------------------------------------------------------------------------------------
+
+    /**
+     * @return a handle (IOAccess, T) void writing a value of the given type
+     */
+    private static MethodHandle writer(final Class<?> type, final MethodHandles.Lookup lookup) throws NoSuchMethodException, IllegalAccessException {
+        if(type.isPrimitive()) {
+            if(type == char.class) return helper("writeChar", void.class, char.class);
+            if(type == byte.class) return virtual("write", void.class, byte.class);
+
+            final String name = "write" + Character.toUpperCase(type.getName().charAt(0)) + type.getName().substring(1);
+            return virtual(name, void.class, type);
+        }
+
+        final MethodHandle write;
+        if(type.isRecord()) {
+            write = bound("writeRecord", void.class, Nested.class, Object.class).bindTo(new Nested(type, lookup));
+        } else if(type.isEnum()) {
+            write = helper("writeEnum", void.class, Enum.class);
+        } else if(type == String.class) {
+            write = helper("writeString", void.class, String.class);
+        } else if(type == UUID.class) {
+            write = virtual("writeUUID", void.class, UUID.class);
+        } else if(type.isArray() && type.getComponentType().isPrimitive()) {
+            write = helper("writeArray", void.class, type);
+        } else {
+            throw new IllegalArgumentException("Unsupported component type %s.".formatted(type.getName()));
+        }
+
+        final MethodHandle nullable = bound("writeNullable", void.class, MethodHandle.class, Object.class)
+                .bindTo(write.asType(MethodType.methodType(void.class, IOAccess.class, Object.class)));
+        return nullable.asType(MethodType.methodType(void.class, IOAccess.class, type));
+    }
+
+    /**
+     * @return a handle (IOAccess) T reading a value of the given type
+     */
+    private static MethodHandle reader(final Class<?> type, final MethodHandles.Lookup lookup) throws NoSuchMethodException, IllegalAccessException {
+        if(type.isPrimitive()) {
+            if(type == char.class) return helper("readChar", char.class);
+            if(type == byte.class) return virtual("read", byte.class);
+
+            final String name = "read" + Character.toUpperCase(type.getName().charAt(0)) + type.getName().substring(1);
+            return virtual(name, type);
+        }
+
+        final MethodHandle read;
+        if(type.isRecord()) {
+            read = bound("readRecord", Object.class, Nested.class).bindTo(new Nested(type, lookup));
+        } else if(type.isEnum()) {
+            read = MethodHandles.insertArguments(bound("readEnum", Object.class, Object[].class), 0, (Object) type.getEnumConstants());
+        } else if(type == String.class) {
+            read = helper("readString", String.class);
+        } else if(type == UUID.class) {
+            read = virtual("readUUID", UUID.class);
+        } else if(type.isArray() && type.getComponentType().isPrimitive()) {
+            read = LOOKUP.findStatic(IORecordCodec.class, "read" + Character.toUpperCase(type.getComponentType().getName().charAt(0))
+                    + type.getComponentType().getName().substring(1) + "Array", MethodType.methodType(type, IOAccess.class));
+        } else {
+            throw new IllegalArgumentException("Unsupported component type %s.".formatted(type.getName()));
+        }
+
+        final MethodHandle nullable = bound("readNullable", Object.class, MethodHandle.class)
+                .bindTo(read.asType(MethodType.methodType(Object.class, IOAccess.class)));
+        return nullable.asType(MethodType.methodType(type, IOAccess.class));
+    }
+
+    private static MethodHandle virtual(final String name, final Class<?> returnType, final Class<?>... parameters) throws NoSuchMethodException, IllegalAccessException {
+        return LOOKUP.findVirtual(IOAccess.class, name, MethodType.methodType(returnType, parameters));
+    }
+
+    /**
+     * Finds a static helper of this class with the signature (IOAccess, parameters...)
+     */
+    private static MethodHandle helper(final String name, final Class<?> returnType, final Class<?>... parameters) throws NoSuchMethodException, IllegalAccessException {
+        return LOOKUP.findStatic(IORecordCodec.class, name, MethodType.methodType(returnType, IOAccess.class).appendParameterTypes(parameters));
+    }
+
+    /**
+     * Finds a static helper of this class with the signature (bound, IOAccess, parameters...), the first argument is bound by the caller
+     */
+    private static MethodHandle bound(final String name, final Class<?> returnType, final Class<?> bound, final Class<?>... parameters) throws NoSuchMethodException, IllegalAccessException {
+        return LOOKUP.findStatic(IORecordCodec.class, name, MethodType.methodType(returnType, bound, IOAccess.class).appendParameterTypes(parameters));
+    }
+
+    /**
+     * Lazily resolves the codec of a nested record, which allows recursive record types
+     */
+    private static final class Nested {
+
+        private final Class<?> type;
+        private final MethodHandles.Lookup lookup;
+        private IORecordCodec<?> codec;
+
+        private Nested(final Class<?> type, final MethodHandles.Lookup lookup) {
+            this.type = type;
+            this.lookup = lookup;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private IORecordCodec<?> codec() {
+            if(codec == null) codec = of((Class) type, lookup);
+            return codec;
+        }
+    }
+
+    //-------------------------------------------------------------------------------------------
+    // Helpers, invoked through the composed handles
+    //-------------------------------------------------------------------------------------------
+
+    private static void writeNullable(final MethodHandle write, final IOAccess access, final Object value) throws Throwable {
+        access.writeBoolean(value != null);
+        if(value != null) write.invokeExact(access, value);
+    }
+
+    private static Object readNullable(final MethodHandle read, final IOAccess access) throws Throwable {
+        if(!access.readBoolean()) return null;
+        return (Object) read.invokeExact(access);
+    }
+
+    private static void writeChar(final IOAccess access, final char value) {
+        access.writeShort((short) value);
+    }
+
+    private static char readChar(final IOAccess access) {
+        return (char) access.readShort();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void writeRecord(final Nested nested, final IOAccess access, final Object value) {
+        ((IORecordCodec) nested.codec()).write(access, (Record) value);
+    }
+
+    private static Object readRecord(final Nested nested, final IOAccess access) {
+        return nested.codec().read(access);
+    }
+
+    private static void writeEnum(final IOAccess access, final Enum<?> value) {
+        access.writeInt(value.ordinal());
+    }
+
+    private static Object readEnum(final Object[] constants, final IOAccess access) {
+        return constants[access.readInt()];
+    }
+
+    private static void writeString(final IOAccess access, final String value) {
+        access.writeStringShort(value, StandardCharsets.UTF_8);
+    }
+
+    private static String readString(final IOAccess access) {
+        return access.readStringShort(StandardCharsets.UTF_8);
+    }
+
+    private static void writeArray(final IOAccess access, final byte[] values) {
+        access.writeInt(values.length);
+        access.write(values);
+    }
+
+    private static byte[] readByteArray(final IOAccess access) {
+        return access.read(access.readInt());
+    }
+
+    private static void writeArray(final IOAccess access, final boolean[] values) {
+        access.writeInt(values.length);
+        for(boolean value : values) access.writeBoolean(value);
+    }
+
+    private static boolean[] readBooleanArray(final IOAccess access) {
+        final boolean[] values = new boolean[access.readInt()];
+        for(int i = 0; i < values.length; i++) values[i] = access.readBoolean();
+        return values;
+    }
+
+    private static void writeArray(final IOAccess access, final short[] values) {
+        access.writeInt(values.length);
+        for(short value : values) access.writeShort(value);
+    }
+
+    private static short[] readShortArray(final IOAccess access) {
+        final short[] values = new short[access.readInt()];
+        for(int i = 0; i < values.length; i++) values[i] = access.readShort();
+        return values;
+    }
+
+    private static void writeArray(final IOAccess access, final char[] values) {
+        access.writeInt(values.length);
+        for(char value : values) access.writeShort((short) value);
+    }
+
+    private static char[] readCharArray(final IOAccess access) {
+        final char[] values = new char[access.readInt()];
+        for(int i = 0; i < values.length; i++) values[i] = (char) access.readShort();
+        return values;
+    }
+
+    private static void writeArray(final IOAccess access, final int[] values) {
+        access.writeInt(values.length);
+        for(int value : values) access.writeInt(value);
+    }
+
+    private static int[] readIntArray(final IOAccess access) {
+        final int[] values = new int[access.readInt()];
+        for(int i = 0; i < values.length; i++) values[i] = access.readInt();
+        return values;
+    }
+
+    private static void writeArray(final IOAccess access, final long[] values) {
+        access.writeInt(values.length);
+        for(long value : values) access.writeLong(value);
+    }
+
+    private static long[] readLongArray(final IOAccess access) {
+        final long[] values = new long[access.readInt()];
+        for(int i = 0; i < values.length; i++) values[i] = access.readLong();
+        return values;
+    }
+
+    private static void writeArray(final IOAccess access, final float[] values) {
+        access.writeInt(values.length);
+        for(float value : values) access.writeFloat(value);
+    }
+
+    private static float[] readFloatArray(final IOAccess access) {
+        final float[] values = new float[access.readInt()];
+        for(int i = 0; i < values.length; i++) values[i] = access.readFloat();
+        return values;
+    }
+
+    private static void writeArray(final IOAccess access, final double[] values) {
+        access.writeInt(values.length);
+        for(double value : values) access.writeDouble(value);
+    }
+
+    private static double[] readDoubleArray(final IOAccess access) {
+        final double[] values = new double[access.readInt()];
+        for(int i = 0; i < values.length; i++) values[i] = access.readDouble();
+        return values;
+    }
+}
@@ -0,0 +1,261 @@
+package com.bethibande.memory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A read-only index over sorted, fixed-width records, e.g. a lookup table opened using
+ * {@link IOAccess#map(java.nio.file.Path, long, long, java.nio.channels.FileChannel.MapMode)}.
+ * The records are searched in place, without copying them onto the heap. <br>
+ * Records stored in {@link Layout#SORTED} order support binary search, interpolation search and range scans.
+ * Records stored in {@link Layout#EYTZINGER} order, see {@link #writeEytzinger(IOAccess, IOAccess, int)},
+ * only support lookups of single keys, but access memory in a far more cache-friendly pattern. <br>
+ * Keys are passed as longs, unsigned keys are passed using their unsigned value, see {@link IORecordKey}. <br>
+ * <b>!! Thread-safety:</b> Record indices are not thread-safe, create one index per thread.
+ */
+@SuppressWarnings("unused")
+public class IORecordIndex {
+
+    public enum Layout {
+        /**
+         * Records are sorted by key in ascending order
+         */
+        SORTED,
+        /**
+         * Records are stored in the breadth-first order of an implicit, complete binary search tree
+         */
+        EYTZINGER
+    }
+
+    /**
+     * Copies records from sorted order into eytzinger order
+     * @param sorted the records, sorted by key in ascending order
+     * @param target the access to write the records to, must be at least as large as the sorted records
+     * @param recordSize the size of a single record in bytes
+     */
+    public static void writeEytzinger(final IOAccess sorted, final IOAccess target, final int recordSize) {
+        if(recordSize <= 0) throw new IllegalArgumentException("The record size must be positive.");
+        final long count = sorted.length() / recordSize;
+
+        sorted.checkRead();
+        sorted.checkIndexed();
+        target.checkWrite();
+        target.checkIndexed();
+        target.checkWriteIndex(0, count * recordSize);
+
+        writeEytzinger(sorted, target, recordSize, count, 0L, 1L);
+    }
+
+    /**
+     * Copies the subtree at node k using an in-order traversal
+     * @param next the next record to copy from the sorted records
+     * @return the record to copy after this subtree
+     */
+    private static long writeEytzinger(final IOAccess sorted,
+                                       final IOAccess target,
+                                       final int recordSize,
+                                       final long count,
+                                       long next,
+                                       final long k) {
+        if(k > count) return next;
+
+        next = writeEytzinger(sorted, target, recordSize, count, next, 2 * k);
+        copyRecord(sorted, next * recordSize, target, (k - 1) * recordSize, recordSize);
+        next++;
+
+        return writeEytzinger(sorted, target, recordSize, count, next, 2 * k + 1);
+    }
+
+    private static void copyRecord(final IOAccess source,
+                                   final long from,
+                                   final IOAccess target,
+                                   final long to,
+                                   final int recordSize) {
+        final ByteBuffer src = source.buffer(from, recordSize);
+        final ByteBuffer dst = target.writableBuffer(to, recordSize);
+
+        if(src != null && dst != null) {
+            dst.put(src);
+            return;
+        }
+
+        target.set(source.get(from, recordSize), to);
+    }
+
+    private final IOAccess records;
+    private final IOCursor cursor;
+    private final int recordSize;
+    private final long count;
+    private final IORecordKey key;
+    private final Layout layout;
+
+    public IORecordIndex(final IOAccess records, final int recordSize, final IORecordKey key) {
+        this(records, recordSize, key, Layout.SORTED);
+    }
+
+    /**
+     * @param records the records, the length of the access must be a multiple of the record size
+     * @param recordSize the size of a single record in bytes
+     * @param key the key of the records
+     * @param layout the order the records are stored in
+     */
+    public IORecordIndex(final IOAccess records, final int recordSize, final IORecordKey key, final Layout layout) {
+        if(recordSize <= 0) throw new IllegalArgumentException("The record size must be positive.");
+        if(key.offset() + key.width() > recordSize) throw new IllegalArgumentException("The key must lie within the record.");
+        if(records.length() < 0) throw new IllegalArgumentException("The length of the records must be known.");
+
+        this.records = records;
+        this.recordSize = recordSize;
+        this.count = records.length() / recordSize;
+        this.key = key;
+        this.layout = layout;
+        this.cursor = records.cursor(0, count * recordSize).withByteOrder(ByteOrder.nativeOrder());
+    }
+
+    private long keyAt(final long record) {
+        return key.read(cursor, record * recordSize);
+    }
+
+    private void checkSorted() {
+        if(layout != Layout.SORTED) throw new UnsupportedOperationException("Operation requires records in sorted order.");
+    }
+
+    /**
+     * Finds the first record with a key greater than or equal to the given key, using a branch-free binary search
+     * @return the position of the record, or the number of records if all keys are smaller
+     */
+    public long lowerBound(final long key) {
+        checkSorted();
+        if(count == 0) return 0;
+
+        final long target = this.key.normalize(key);
+        long base = 0;
+        long n = count;
+        while(n > 1) {
+            final long half = n >>> 1;
+            base = keyAt(base + half) < target ? base + half: base;
+            n -= half;
+        }
+
+        return base + (keyAt(base) < target ? 1: 0);
+    }
+
+    /**
+     * Finds a record with the given key, sorted records are searched using a branch-free binary search,
+     * eytzinger ordered records using a search of the implicit tree
+     * @return the position of the record, or -1 if there is no record with the given key
+     */
+    public long find(final long key) {
+        if(layout == Layout.EYTZINGER) return findEytzinger(key);
+
+        final long position = lowerBound(key);
+        return position < count && keyAt(position) == this.key.normalize(key) ? position: -1;
+    }
+
+    private long findEytzinger(final long key) {
+        final long target = this.key.normalize(key);
+
+        long k = 1;
+        while(k <= count) {
+            k = 2 * k + (keyAt(k - 1) < target ? 1: 0);
+        }
+        k >>>= Long.numberOfTrailingZeros(~k) + 1;
+
+        return k != 0 && keyAt(k - 1) == target ? k - 1: -1;
+    }
+
+    /**
+     * Finds a record with the given key using interpolation search, which takes O(log log n) steps for
+     * uniformly distributed keys. Falls back to binary search if the keys are not distributed evenly.
+     * @return the position of the record, or -1 if there is no record with the given key
+     */
+    public long findInterpolated(final long key) {
+        checkSorted();
+        if(count == 0) return -1;
+
+        final long target = this.key.normalize(key);
+        long lo = 0;
+        long hi = count - 1;
+        int steps = 64 - Long.numberOfLeadingZeros(count);
+
+        while(lo <= hi && steps-- > 0) {
+            final long low = keyAt(lo);
+            final long high = keyAt(hi);
+            if(target < low || target > high) return -1;
+            if(low == high) return low == target ? lo: -1;
+
+            final double fraction = ((double) target - (double) low) / ((double) high - (double) low);
+            final long position = Math.min(hi, Math.max(lo, lo + (long) (fraction * (hi - lo))));
+            final long value = keyAt(position);
+
+            if(value == target) return position;
+            if(value < target) {
+                lo = position + 1;
+            } else {
+                hi = position - 1;
+            }
+        }
+
+        while(lo <= hi) {
+            final long mid = (lo + hi) >>> 1;
+            final long value = keyAt(mid);
+
+            if(value == target) return mid;
+            if(value < target) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns all records with a key within the given range as a zero-copy slice of the records
+     * @param fromKey the smallest key, inclusive
+     * @param toKey the largest key, exclusive
+     */
+    public IOAccess range(final long fromKey, final long toKey) {
+        final long from = lowerBound(fromKey);
+        final long to = Math.max(from, lowerBound(toKey));
+
+        return records.slice(from * recordSize, (to - from) * recordSize);
+    }
+
+    /**
+     * @return a zero-copy slice of the record at the given position
+     */
+    public IOAccess get(final long position) {
+        if(position < 0 || position >= count) throw new IndexOutOfBoundsException(position);
+        return records.slice(position * recordSize, recordSize);
+    }
+
+    /**
+     * @return the key of the record at the given position, in its comparable form, see {@link IORecordKey}
+     */
+    public long getKey(final long position) {
+        if(position < 0 || position >= count) throw new IndexOutOfBoundsException(position);
+        return keyAt(position);
+    }
+
+    public long size() {
+        return count;
+    }
+
+    public int getRecordSize() {
+        return recordSize;
+    }
+
+    public IORecordKey getKey() {
+        return key;
+    }
+
+    public Layout getLayout() {
+        return layout;
+    }
+
+    public IOAccess getRecords() {
+        return records;
+    }
+}
@@ -0,0 +1,58 @@
+package com.bethibande.memory;
+
+import java.nio.ByteOrder;
+
+/**
+ * Describes the key of a fixed-width record, used by {@link IORecordIndex}. <br>
+ * Keys are converted to longs which compare correctly as signed values, unsigned 8 byte keys are stored
+ * with their sign bit flipped.
+ * @param offset the offset of the key within the record
+ * @param width the width of the key in bytes, must be 1, 2, 4 or 8
+ * @param signed whether the key is compared as a signed or unsigned number
+ * @param order the byte order the key is stored in
+ */
+public record IORecordKey(int offset, int width, boolean signed, ByteOrder order) {
+
+    public IORecordKey {
+        if(offset < 0) throw new IllegalArgumentException("The key offset must not be negative.");
+        if(width != 1 && width != 2 && width != 4 && width != 8) throw new IllegalArgumentException("The key width must be 1, 2, 4 or 8 bytes.");
+        if(order == null) throw new NullPointerException("order must not be null.");
+    }
+
+    public static IORecordKey signed(final int offset, final int width) {
+        return new IORecordKey(offset, width, true, ByteOrder.nativeOrder());
+    }
+
+    public static IORecordKey unsigned(final int offset, final int width) {
+        return new IORecordKey(offset, width, false, ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Converts a key value into its comparable form
+     * @param key the key, unsigned keys are passed using their unsigned value or bit pattern for 8 byte keys
+     */
+    long normalize(final long key) {
+        return width == 8 && !signed ? key ^ Long.MIN_VALUE: key;
+    }
+
+    /**
+     * Reads the key of the record at the given index and returns its comparable form
+     */
+    long read(final IOCursor cursor, final long record) {
+        final long index = record + offset;
+        final boolean swap = order != ByteOrder.nativeOrder();
+
+        return switch(width) {
+            case 1 -> signed ? cursor.get(index): cursor.get(index) & 0xFFL;
+            case 2 -> {
+                final short s = swap ? Short.reverseBytes(cursor.getShort(index)): cursor.getShort(index);
+                yield signed ? s: s & 0xFFFFL;
+            }
+            case 4 -> {
+                final int i = swap ? Integer.reverseBytes(cursor.getInt(index)): cursor.getInt(index);
+                yield signed ? i: i & 0xFFFFFFFFL;
+            }
+            default -> normalize(swap ? Long.reverseBytes(cursor.getLong(index)): cursor.getLong(index));
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package com.bethibande.memory;
+
+import java.util.Map;
+
+/**
+ * Live memory and I/O statistics of the library, registered as {@link IOManagement#OBJECT_NAME}.
+ * Bytes read and written are counted by bulk operations, e.g. byte array reads/writes and copies,
+ * primitive reads and writes are not counted. Only native memory and mappings are tracked as allocations,
+ * heap backed accesses are not counted.
+ */
+@SuppressWarnings("unused")
+public interface IOStatisticsMXBean {
+
+    /**
+     * @return the live native bytes per backend, e.g. unsafe, scoped and mapped
+     */
+    Map<String, Long> getNativeBytes();
+
+    /**
+     * @return the total number of live native bytes
+     */
+    long getTotalNativeBytes();
+
+    /**
+     * @return the number of native allocations and mappings which have not been freed yet,
+     *         slices and retained references share the allocation of their parent and are not counted
+     */
+    long getLiveAllocations();
+
+    /**
+     * @return the number of slices created since the last reset, slices are not tracked once created
+     */
+    long getSlices();
+
+    /**
+     * @return the number of bytes read per backend
+     */
+    Map<String, Long> getBytesRead();
+
+    /**
+     * @return the number of bytes written per backend
+     */
+    Map<String, Long> getBytesWritten();
+
+    /**
+     * @return the number of read calls issued to file channels
+     */
+    long getFileReadCalls();
+
+    /**
+     * @return the number of write calls issued to file channels
+     */
+    long getFileWriteCalls();
+
+    /**
+     * @return the number of force calls issued to file channels and memory mapped files
+     */
+    long getFileForceCalls();
+
+    /**
+     * Resets all cumulative counters, live native bytes and allocations are kept
+     */
+    void reset();
+
+}
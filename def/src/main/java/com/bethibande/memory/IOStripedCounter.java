@@ -0,0 +1,160 @@
+package com.bethibande.memory;
+
+import sun.misc.Unsafe;
+
+/**
+ * A counter striped over multiple off-heap cells, similar to {@link java.util.concurrent.atomic.LongAdder}.
+ * Every cell occupies its own 64-byte cache line, threads update the cell selected by their thread id,
+ * so concurrent updates by different threads rarely contend or cause false sharing. <br>
+ * The cells may be placed in any region backed by native memory, e.g. {@link IOAccess#unsafe(long)},
+ * {@link IOAccess#scopedAlignedMemory(long, long)} or a shared memory mapped file to export the counter.
+ * Cells are stored as native-order longs. <br>
+ * <b>!! Note:</b> the counter accesses the region directly, the region must not be released while the counter is in use.
+ * {@link #sum()} is not an atomic snapshot, concurrent updates may or may not be included.
+ */
+@SuppressWarnings("unused")
+public class IOStripedCounter implements AutoCloseable {
+
+    public static final int CACHE_LINE = 64;
+
+    private static final Unsafe UNSAFE;
+
+    static {
+        try {
+            UNSAFE = UnsafeHelper.getUnsafe();
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return the number of bytes required to store a counter with the given number of stripes
+     */
+    public static long bytes(final int stripes) {
+        return (long) stripes(stripes) * CACHE_LINE;
+    }
+
+    private static int stripes(final int stripes) {
+        if(stripes <= 0 || stripes > 1 << 16) throw new IllegalArgumentException("stripes must be within [1, 65536].");
+        return stripes == 1 ? 1: Integer.highestOneBit(stripes - 1) << 1;
+    }
+
+    /**
+     * Allocates a counter with one stripe per available processor
+     */
+    public static IOStripedCounter allocate() {
+        return allocate(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Allocates a counter in a new off-heap region, which is freed when closing the counter
+     * @param stripes the number of cells, rounded up to the next power of two
+     */
+    public static IOStripedCounter allocate(final int stripes) {
+        final UnsafeIOAccess region = UnsafeIOAccess.allocate(bytes(stripes) + CACHE_LINE);
+        final long offset = (CACHE_LINE - region.address() % CACHE_LINE) % CACHE_LINE;
+        return new IOStripedCounter(region, offset, stripes, true);
+    }
+
+    /**
+     * Creates a counter using the cells at the given offset of the given region, the cells are not reset.
+     * Multiple counters may share a region, each requiring {@link #bytes(int)} bytes.
+     * @param region a region backed by native memory
+     * @param offset the offset of the first cell, the address of the cell must be aligned to 64 bytes
+     * @param stripes the number of cells, rounded up to the next power of two
+     */
+    public static IOStripedCounter over(final IOAccess region, final long offset, final int stripes) {
+        return new IOStripedCounter(region, offset, stripes, false);
+    }
+
+    private final IOAccess region;
+    private final long base;
+    private final int mask;
+    private final boolean owned;
+
+    private IOStripedCounter(final IOAccess region, final long offset, final int stripes, final boolean owned) {
+        region.checkWrite();
+        region.checkRead();
+        region.checkIndexed();
+        region.checkWriteIndex(offset, bytes(stripes));
+
+        final long address = region.address();
+        if(address < 0) throw new IllegalArgumentException("The region must be backed by native memory.");
+        if((address + offset) % CACHE_LINE != 0) throw new IllegalArgumentException("The cells must be aligned to 64 bytes.");
+
+        this.region = region;
+        this.base = address + offset;
+        this.mask = stripes(stripes) - 1;
+        this.owned = owned;
+    }
+
+    private long cell(final int stripe) {
+        return base + (long) stripe * CACHE_LINE;
+    }
+
+    private long cell() {
+        final long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return cell((int) (id >>> 32) & mask);
+    }
+
+    public void add(final long value) {
+        UNSAFE.getAndAddLong(null, cell(), value);
+    }
+
+    public void increment() {
+        add(1L);
+    }
+
+    public void decrement() {
+        add(-1L);
+    }
+
+    /**
+     * @return the sum of all cells
+     */
+    public long sum() {
+        long sum = 0L;
+        for(int i = 0; i <= mask; i++) {
+            sum += UNSAFE.getLongVolatile(null, cell(i));
+        }
+
+        return sum;
+    }
+
+    /**
+     * Sets all cells to zero, updates made concurrently may be lost
+     */
+    public void reset() {
+        for(int i = 0; i <= mask; i++) {
+            UNSAFE.putLongVolatile(null, cell(i), 0L);
+        }
+    }
+
+    /**
+     * Returns the sum and resets the cells, updates made concurrently are either included in the sum or kept
+     */
+    public long sumThenReset() {
+        long sum = 0L;
+        for(int i = 0; i <= mask; i++) {
+            sum += UNSAFE.getAndSetLong(null, cell(i), 0L);
+        }
+
+        return sum;
+    }
+
+    public int stripes() {
+        return mask + 1;
+    }
+
+    public IOAccess getRegion() {
+        return region;
+    }
+
+    /**
+     * Frees the region if it has been allocated by the counter
+     */
+    @Override
+    public void close() {
+        if(owned) region.release();
+    }
+}
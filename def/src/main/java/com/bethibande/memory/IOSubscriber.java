@@ -0,0 +1,158 @@
+package com.bethibande.memory;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * Writes all chunks received from a publisher into a target access, see {@link IOPublisher}. <br>
+ * Indexed targets are written starting at the given index, other targets, e.g. streams, are written sequentially.
+ * Chunks are copied directly between memory backed accesses, without an intermediate array. <br>
+ * The subscriber keeps at most {@code prefetch} chunks requested and requests a new chunk once a chunk has been written.
+ * Reference counted chunks are released once they have been written or discarded. <br>
+ * <b>!! Thread-safety:</b> the target is written by the thread delivering the chunks,
+ * so it must either be owned by that thread or not be owned by any thread.
+ */
+@SuppressWarnings("unused")
+public class IOSubscriber implements Flow.Subscriber<IOAccess> {
+
+    public static final int DEFAULT_PREFETCH = 4;
+
+    private final IOAccess target;
+    private final int prefetch;
+    private final CompletableFuture<Long> completion = new CompletableFuture<>();
+
+    private Flow.Subscription subscription;
+    private long position;
+    private long written = 0;
+
+    public IOSubscriber(final IOAccess target) {
+        this(target, target.isIndexed() ? target.index(): 0, DEFAULT_PREFETCH);
+    }
+
+    /**
+     * @param target the access to write to
+     * @param index the index of the first byte written, ignored if the target is not indexed
+     * @param prefetch the number of chunks requested in advance
+     */
+    public IOSubscriber(final IOAccess target, final long index, final int prefetch) {
+        if(prefetch <= 0) throw new IllegalArgumentException("prefetch must be positive.");
+
+        this.target = target;
+        this.position = index;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public void onSubscribe(final Flow.Subscription subscription) {
+        if(this.subscription != null) {
+            subscription.cancel();
+            return;
+        }
+
+        this.subscription = subscription;
+        subscription.request(prefetch);
+    }
+
+    @Override
+    public void onNext(final IOAccess chunk) {
+        try {
+            if(completion.isDone()) return;
+
+            write(chunk);
+        } catch (RuntimeException | Error e) {
+            subscription.cancel();
+            completion.completeExceptionally(e);
+            return;
+        } finally {
+            if(chunk.isReferenceCounted()) chunk.release();
+        }
+
+        subscription.request(1);
+    }
+
+    private void write(final IOAccess chunk) {
+        chunk.checkRead();
+        target.checkWrite();
+
+        final long from = chunk.isIndexed() ? chunk.index(): 0;
+        final int length = (int) (chunk.isIndexed() ? chunk.remaining(): chunk.length());
+        if(length < 0) throw new IllegalArgumentException("Cannot write chunks of unknown length.");
+
+        final ByteBuffer source = chunk.isIndexed() ? chunk.buffer(from, length): null;
+
+        if(!target.isIndexed()) {
+            if(source != null && source.hasArray()) {
+                target.write(source.array(), source.arrayOffset() + source.position(), length);
+            } else {
+                target.write(source != null ? bytes(source): chunk.isIndexed() ? chunk.get(from, length): chunk.read(length));
+            }
+            written += length;
+            return;
+        }
+
+        target.checkWriteIndex(position, length);
+        final ByteBuffer destination = target.writableBuffer(position, length);
+        if(destination != null) {
+            destination.put(source != null ? source: ByteBuffer.wrap(chunk.isIndexed() ? chunk.get(from, length): chunk.read(length)));
+        } else if(source != null && source.hasArray()) {
+            target.set(source.array(), position, source.arrayOffset() + source.position(), length);
+        } else {
+            target.set(source != null ? bytes(source): chunk.isIndexed() ? chunk.get(from, length): chunk.read(length), position);
+        }
+
+        position += length;
+        written += length;
+    }
+
+    private static byte[] bytes(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+        completion.completeExceptionally(throwable);
+    }
+
+    /**
+     * Flushes the target if it is not indexed, e.g. a stream, and completes the future
+     */
+    @Override
+    public void onComplete() {
+        if(completion.isDone()) return;
+
+        try {
+            if(!target.isIndexed()) target.flush();
+        } catch (RuntimeException e) {
+            completion.completeExceptionally(e);
+            return;
+        }
+
+        completion.complete(written);
+    }
+
+    /**
+     * Cancels the subscription, the future completes exceptionally
+     */
+    public void cancel() {
+        if(subscription != null) subscription.cancel();
+        completion.cancel(false);
+    }
+
+    /**
+     * @return a future completed with the number of bytes written once the publisher completed,
+     *         or exceptionally if the publisher or writing a chunk failed
+     */
+    public CompletableFuture<Long> completion() {
+        return completion;
+    }
+
+    /**
+     * @return the number of bytes written so far
+     */
+    public long written() {
+        return written;
+    }
+}
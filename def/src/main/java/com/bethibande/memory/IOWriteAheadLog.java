@@ -0,0 +1,390 @@
+package com.bethibande.memory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only write-ahead log stored in fixed-size, memory mapped segment files. <br>
+ * Records are stored using the frame format of {@link IOFrameWriter}. Every record is addressed by a position,
+ * a byte offset within the log, the position of a segment is part of its file name.
+ * Appending a record returns the position after the record, passing this position to {@link #sync(long)}
+ * blocks until the record is durable. Concurrent calls to sync are combined into a single force of the
+ * mapped segments (group commit). <br>
+ * When opening an existing log, all segments are scanned to find the last valid record,
+ * a torn record and all records following it are discarded. <br>
+ * <b>!! Thread-safety:</b> All methods may be called concurrently.
+ */
+@SuppressWarnings("unused")
+public class IOWriteAheadLog implements AutoCloseable {
+
+    public static final String SEGMENT_SUFFIX = ".wal";
+
+    private static final byte ZERO = 0;
+
+    /**
+     * Opens the log stored in the given directory, or creates a new log if the directory contains no segments
+     * @param directory the directory containing the segment files
+     * @param segmentSize the size of a segment file in bytes, must match the size used to create the log
+     */
+    public static IOWriteAheadLog open(final Path directory, final long segmentSize) throws IOException {
+        if(segmentSize <= IOFrameWriter.HEADER_SIZE) throw new IllegalArgumentException("The segment size must be larger than %d bytes.".formatted(IOFrameWriter.HEADER_SIZE));
+
+        Files.createDirectories(directory);
+
+        final IOWriteAheadLog log = new IOWriteAheadLog(directory, segmentSize);
+        log.recover();
+
+        return log;
+    }
+
+    /**
+     * A mapped segment file. Segments read by {@link #replay(long, ObjLongConsumer)} are pinned, segments removed
+     * from the log while pinned are retired and unmapped once the last reader is done.
+     * The reader count and flags are guarded by the monitor of the log.
+     */
+    private static final class Segment {
+
+        private final long base;
+        private final Path path;
+        private final IOAccess access;
+        private int readers = 0;
+        private boolean retired = false;
+        private boolean delete = false;
+
+        private Segment(final long base, final Path path, final IOAccess access) {
+            this.base = base;
+            this.path = path;
+            this.access = access;
+        }
+
+        private long base() {
+            return base;
+        }
+
+        private Path path() {
+            return path;
+        }
+
+        private IOAccess access() {
+            return access;
+        }
+
+        private void discard() throws IOException {
+            access.release();
+            if(delete) Files.delete(path);
+        }
+    }
+
+    private final Path directory;
+    private final long segmentSize;
+
+    private final List<Segment> segments = new ArrayList<>();
+    private final Object syncLock = new Object();
+    private final CRC32C crc = new CRC32C();
+    private final ByteBuffer lengthBuffer = ByteBuffer.allocate(4).order(ByteOrder.BIG_ENDIAN);
+
+    private Segment tail;
+    private volatile long written;
+    private volatile long durable;
+    private volatile boolean closed = false;
+
+    private IOWriteAheadLog(final Path directory, final long segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    private Path segmentPath(final long base) {
+        return directory.resolve("%020d%s".formatted(base, SEGMENT_SUFFIX));
+    }
+
+    private Segment mapSegment(final long base, final Path path) throws IOException {
+        if(!Files.exists(path)) Files.createFile(path);
+
+        return new Segment(base, path, IOAccess.map(path, 0, segmentSize, FileChannel.MapMode.READ_WRITE, true));
+    }
+
+    private void recover() throws IOException {
+        final List<Path> files;
+        try(final Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+
+        for(Path file : files) {
+            final String name = file.getFileName().toString();
+            final long base = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            segments.add(mapSegment(base, file));
+        }
+
+        if(segments.isEmpty()) segments.add(mapSegment(0L, segmentPath(0L)));
+
+        long offset = 0L;
+        for(int i = 0; i < segments.size(); i++) {
+            final Segment segment = segments.get(i);
+            final IOFrameReader reader = new IOFrameReader(segment.access());
+            boolean torn = false;
+            try {
+                while(reader.skip());
+            } catch (IllegalStateException e) {
+                torn = true;
+            }
+
+            offset = reader.position();
+            if(!torn) continue;
+
+            ((NativeIOAccess) segment.access()).fill(offset, segmentSize - offset, ZERO);
+            segment.access().force(offset, segmentSize - offset);
+
+            // records following a torn record may depend on it, discard them
+            while(segments.size() > i + 1) {
+                final Segment discarded = segments.remove(i + 1);
+                discarded.delete = true;
+                discarded.discard();
+            }
+        }
+
+        tail = segments.get(segments.size() - 1);
+        written = tail.base() + offset;
+        durable = written;
+    }
+
+    /**
+     * Removes the segment from the log, it is unmapped once no replay is reading it anymore.
+     * Must be called while holding the monitor of the log.
+     * @param delete whether to delete the segment file once it has been unmapped
+     */
+    private void retire(final Segment segment, final boolean delete) throws IOException {
+        segment.retired = true;
+        segment.delete = delete;
+        if(segment.readers == 0) segment.discard();
+    }
+
+    private void checkOpen() {
+        if(closed) throw new IllegalStateException("The log has already been closed.");
+    }
+
+    /**
+     * Maps a new segment following the current tail segment, must be called while holding the monitor of the log
+     */
+    private void roll() {
+        final long base = tail.base() + segmentSize;
+        try {
+            tail = mapSegment(base, segmentPath(base));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        segments.add(tail);
+    }
+
+    public long append(final byte[] data) {
+        return append(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Appends the given region of an access as a record, off-heap and heap backed accesses
+     * are copied into the log without an intermediate array.
+     * @return the position after the record
+     */
+    public long append(final IOAccess source, final long index, final int length) {
+        source.checkRead();
+        source.checkIndexed();
+        source.checkReadIndex(index, length);
+
+        final ByteBuffer view = source.buffer(index, length);
+        return append(view != null ? view: ByteBuffer.wrap(source.get(index, length)));
+    }
+
+    /**
+     * Appends the remaining bytes of the given buffer as a record, the position of the buffer is not modified.
+     * The record will not be durable until {@link #sync(long)} is called.
+     * @return the position after the record
+     */
+    public synchronized long append(final ByteBuffer payload) {
+        checkOpen();
+
+        final int length = payload.remaining();
+        final long size = (long) IOFrameWriter.HEADER_SIZE + length;
+        if(size > Integer.MAX_VALUE) throw new IllegalArgumentException("Record of %d bytes exceeds the maximum record size.".formatted(size));
+        if(size > segmentSize) throw new IllegalArgumentException("Record of %d bytes does not fit into a segment.".formatted(size));
+
+        long offset = written - tail.base();
+        if(offset + size > segmentSize) {
+            roll();
+            offset = 0;
+        }
+
+        final int checksum = IOFrameWriter.checksum(crc, lengthBuffer, payload);
+        final ByteBuffer view = tail.access().writableBuffer(offset, (int) size);
+        final ByteBuffer target = (view != null ? view: ByteBuffer.allocate((int) size)).order(ByteOrder.BIG_ENDIAN);
+        target.putInt(length);
+        target.putInt(checksum);
+        target.put(payload.duplicate());
+        if(view == null) tail.access().set(target.array(), offset);
+
+        written = tail.base() + offset + size;
+        return written;
+    }
+
+    /**
+     * Blocks until all records up to the given position are durable. If another thread is currently forcing
+     * the log, this thread waits and then forces all records appended in the meantime using a single force operation.
+     * @param position a position returned by one of the append methods
+     */
+    public void sync(final long position) {
+        if(durable >= position) return;
+
+        synchronized(syncLock) {
+            if(durable >= position) return;
+
+            final long target;
+            final List<Segment> pending = new ArrayList<>();
+            synchronized(this) {
+                checkOpen();
+                target = written;
+                for(Segment segment : segments) {
+                    if(segment.base() + segmentSize > durable && segment.base() < target) pending.add(segment);
+                }
+            }
+
+            for(Segment segment : pending) {
+                final long from = Math.max(durable, segment.base()) - segment.base();
+                final long to = Math.min(target, segment.base() + segmentSize) - segment.base();
+                if(to > from) segment.access().force(from, to - from);
+            }
+
+            durable = target;
+        }
+    }
+
+    /**
+     * Blocks until all appended records are durable
+     */
+    public void sync() {
+        sync(written);
+    }
+
+    /**
+     * Calls the consumer for every record starting at the given position, records appended concurrently may not be visible.
+     * The record passed to the consumer is a zero-copy slice of the mapped segment, it must not be used after the consumer returns.
+     * The segments read are pinned until the replay is done, segments truncated or closed in the meantime
+     * are unmapped and deleted afterwards.
+     * @param from the position of the first record, e.g. 0 or a position returned by one of the append methods
+     * @param consumer accepts the record and the position after the record
+     */
+    public void replay(final long from, final ObjLongConsumer<IOAccess> consumer) {
+        final long end;
+        final List<Segment> pinned = new ArrayList<>();
+        synchronized(this) {
+            checkOpen();
+            end = written;
+            for(Segment segment : segments) {
+                if(segment.base() + segmentSize <= from || segment.base() >= end) continue;
+
+                segment.readers++;
+                pinned.add(segment);
+            }
+        }
+
+        try {
+            for(Segment segment : pinned) {
+                final long start = Math.max(from, segment.base()) - segment.base();
+                final long limit = Math.min(end, segment.base() + segmentSize) - segment.base();
+                final IOFrameReader reader = new IOFrameReader(segment.access().slice(start, limit - start));
+
+                IOAccess record;
+                while((record = reader.next()) != null) {
+                    consumer.accept(record, segment.base() + start + reader.position());
+                }
+            }
+        } finally {
+            unpin(pinned);
+        }
+    }
+
+    private synchronized void unpin(final List<Segment> pinned) {
+        IOException failure = null;
+        for(Segment segment : pinned) {
+            if(--segment.readers > 0 || !segment.retired) continue;
+
+            try {
+                segment.discard();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        if(failure != null) throw new RuntimeException(failure);
+    }
+
+    /**
+     * Deletes all segments containing only records before the given position, the segment currently appended to
+     * is never deleted. Only truncate positions which are durable and no longer need to be replayed.
+     * Segments currently read by a replay are deleted once the replay is done.
+     */
+    public void truncate(final long position) throws IOException {
+        synchronized(syncLock) {
+            synchronized(this) {
+                checkOpen();
+
+                while(segments.size() > 1 && segments.get(0).base() + segmentSize <= position) {
+                    retire(segments.remove(0), true);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the position after the last appended record
+     */
+    public long position() {
+        return written;
+    }
+
+    /**
+     * @return the position up to which all records are durable
+     */
+    public long durablePosition() {
+        return durable;
+    }
+
+    public long getSegmentSize() {
+        return segmentSize;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Forces all appended records and unmaps all segments
+     */
+    @Override
+    public void close() {
+        synchronized(syncLock) {
+            if(closed) return;
+            sync();
+
+            synchronized(this) {
+                closed = true;
+                for(Segment segment : segments) {
+                    try {
+                        retire(segment, false);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                segments.clear();
+            }
+        }
+    }
+}
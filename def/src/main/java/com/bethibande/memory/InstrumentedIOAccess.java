@@ -0,0 +1,1020 @@
+package com.bethibande.memory;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Decorates an access, recording the latency of every operation in a histogram per {@link Operation}.
+ * All calls are delegated to the decorated access, see {@link IOAccess#instrumented(IOAccess)}.
+ * The index, length and state of the decorator always reflect the decorated access. <br>
+ * Recording a call costs two {@link System#nanoTime()} calls and a few atomic increments.
+ * Calls throwing an exception are not recorded.
+ */
+@SuppressWarnings("unused")
+public final class InstrumentedIOAccess extends IOAccess {
+
+    public enum Operation {
+        /**
+         * Reads of single values, e.g. readInt, getLong or peek
+         */
+        PRIMITIVE_READ,
+        /**
+         * Reads of byte arrays and strings, or writing the access to a channel
+         */
+        BULK_READ,
+        /**
+         * All writes, including fills and reading from a channel into the access
+         */
+        WRITE,
+        /**
+         * Copies from other accesses
+         */
+        COPY,
+        /**
+         * Flushes and forces
+         */
+        FLUSH
+    }
+
+    private final IOAccess delegate;
+    private final Map<Operation, IOHistogram> histograms = new EnumMap<>(Operation.class);
+    private final IOHistogram[] byOrdinal = new IOHistogram[Operation.values().length];
+
+    InstrumentedIOAccess(final IOAccess delegate) {
+        super(delegate.index(), delegate.length(), delegate.isIndexed(), delegate.canWrite(), delegate.canRead(), delegate.accessible());
+        this.delegate = delegate;
+
+        for(Operation operation : Operation.values()) {
+            final IOHistogram histogram = new IOHistogram();
+            histograms.put(operation, histogram);
+            byOrdinal[operation.ordinal()] = histogram;
+        }
+    }
+
+    private void record(final Operation operation, final long start) {
+        byOrdinal[operation.ordinal()].record(System.nanoTime() - start);
+    }
+
+    /**
+     * @return the decorated access
+     */
+    public IOAccess getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * @return the latency histogram of the given operation, in nanoseconds
+     */
+    public IOHistogram histogram(final Operation operation) {
+        return byOrdinal[operation.ordinal()];
+    }
+
+    /**
+     * @return a snapshot of the latency histograms of all operations, in nanoseconds
+     */
+    public Map<Operation, IOHistogram.Snapshot> histogramSnapshot() {
+        final Map<Operation, IOHistogram.Snapshot> snapshot = new EnumMap<>(Operation.class);
+        histograms.forEach((operation, histogram) -> snapshot.put(operation, histogram.snapshot()));
+        return snapshot;
+    }
+
+    /**
+     * Resets the histograms of all operations
+     */
+    public void resetHistograms() {
+        histograms.values().forEach(IOHistogram::reset);
+    }
+
+    @Override
+    protected void checkAvailable() {
+        delegate.checkAvailable();
+    }
+
+    @Override
+    protected void checkSlicing() {
+        delegate.checkSlicing();
+    }
+
+    @Override
+    protected void checkOwnership() {
+        delegate.checkOwnership();
+    }
+
+    @Override
+    protected void checkIndexed() {
+        delegate.checkIndexed();
+    }
+
+    @Override
+    protected void checkWrite() {
+        delegate.checkWrite();
+    }
+
+    @Override
+    protected void checkRead() {
+        delegate.checkRead();
+    }
+
+    @Override
+    protected void checkWriteIndex(final long offset) {
+        delegate.checkWriteIndex(offset);
+    }
+
+    @Override
+    protected void checkWriteIndex(final long index, final long offset) {
+        delegate.checkWriteIndex(index, offset);
+    }
+
+    @Override
+    protected void checkReadIndex(final long offset) {
+        delegate.checkReadIndex(offset);
+    }
+
+    @Override
+    protected void checkReadIndex(final long index, final long offset) {
+        delegate.checkReadIndex(index, offset);
+    }
+
+    @Override
+    ByteBuffer buffer(final long index, final int length) {
+        return delegate.buffer(index, length);
+    }
+
+    @Override
+    ByteBuffer writableBuffer(final long index, final int length) {
+        return delegate.writableBuffer(index, length);
+    }
+
+    @Override
+    ByteBuffer sharedBuffer(final long index, final int length) {
+        return delegate.sharedBuffer(index, length);
+    }
+
+    @Override
+    IOCursor createCursor(final long start, final long limit) {
+        return delegate.createCursor(start, limit);
+    }
+
+    @Override
+    long address() {
+        return delegate.address();
+    }
+
+    @Override
+    IOAccessible accessible() {
+        return delegate.accessible();
+    }
+
+    @Override
+    String backend() {
+        return delegate.backend();
+    }
+
+    @Override
+    public byte read() {
+        final long start = System.nanoTime();
+        final byte value = delegate.read();
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public short readUByte() {
+        final long start = System.nanoTime();
+        final short value = delegate.readUByte();
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public byte[] read(final int length) {
+        final long start = System.nanoTime();
+        final byte[] value = delegate.read(length);
+        record(Operation.BULK_READ, start);
+        return value;
+    }
+
+    @Override
+    public byte get(final long index) {
+        final long start = System.nanoTime();
+        final byte value = delegate.get(index);
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public short getUByte(final long index) {
+        final long start = System.nanoTime();
+        final short value = delegate.getUByte(index);
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public byte[] get(final long index, final int length) {
+        final long start = System.nanoTime();
+        final byte[] value = delegate.get(index, length);
+        record(Operation.BULK_READ, start);
+        return value;
+    }
+
+    @Override
+    public void write(final byte b) {
+        final long start = System.nanoTime();
+        delegate.write(b);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public void writeUByte(final short b) {
+        final long start = System.nanoTime();
+        delegate.writeUByte(b);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public void write(final byte[] data) {
+        final long start = System.nanoTime();
+        delegate.write(data);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public void write(final byte[] data, final int offset, final int length) {
+        final long start = System.nanoTime();
+        delegate.write(data, offset, length);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public void set(final byte[] data, final long index) {
+        final long start = System.nanoTime();
+        delegate.set(data, index);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public void set(final byte[] data, final long index, final int off, final int len) {
+        final long start = System.nanoTime();
+        delegate.set(data, index, off, len);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public void set(final byte b, final long index) {
+        final long start = System.nanoTime();
+        delegate.set(b, index);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public void setUByte(final short b, final long index) {
+        final long start = System.nanoTime();
+        delegate.setUByte(b, index);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public short readShort() {
+        final long start = System.nanoTime();
+        final short value = delegate.readShort();
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public int readUShort() {
+        final long start = System.nanoTime();
+        final int value = delegate.readUShort();
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public void writeShort(final short s) {
+        final long start = System.nanoTime();
+        delegate.writeShort(s);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public void writeUShort(final int s) {
+        final long start = System.nanoTime();
+        delegate.writeUShort(s);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public short getShort(final long index) {
+        final long start = System.nanoTime();
+        final short value = delegate.getShort(index);
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public int getUShort(final long index) {
+        final long start = System.nanoTime();
+        final int value = delegate.getUShort(index);
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public void setShort(final short s, final long index) {
+        final long start = System.nanoTime();
+        delegate.setShort(s, index);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public void setUShort(final int s, final long index) {
+        final long start = System.nanoTime();
+        delegate.setUShort(s, index);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public int readInt() {
+        final long start = System.nanoTime();
+        final int value = delegate.readInt();
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public long readUInt() {
+        final long start = System.nanoTime();
+        final long value = delegate.readUInt();
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public void writeInt(final int i) {
+        final long start = System.nanoTime();
+        delegate.writeInt(i);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public void writeUInt(final long i) {
+        final long start = System.nanoTime();
+        delegate.writeUInt(i);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public int getInt(final long index) {
+        final long start = System.nanoTime();
+        final int value = delegate.getInt(index);
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public long getUInt(final long index) {
+        final long start = System.nanoTime();
+        final long value = delegate.getUInt(index);
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public void setInt(final int i, final long index) {
+        final long start = System.nanoTime();
+        delegate.setInt(i, index);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public void setUInt(final long i, final long index) {
+        final long start = System.nanoTime();
+        delegate.setUInt(i, index);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public long readLong() {
+        final long start = System.nanoTime();
+        final long value = delegate.readLong();
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public long getLong(final long index) {
+        final long start = System.nanoTime();
+        final long value = delegate.getLong(index);
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public void writeLong(final long l) {
+        final long start = System.nanoTime();
+        delegate.writeLong(l);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public void setLong(final long l, final long index) {
+        final long start = System.nanoTime();
+        delegate.setLong(l, index);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public void writeFloat(final float f) {
+        final long start = System.nanoTime();
+        delegate.writeFloat(f);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public float readFloat() {
+        final long start = System.nanoTime();
+        final float value = delegate.readFloat();
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public void setFloat(final float f, final long index) {
+        final long start = System.nanoTime();
+        delegate.setFloat(f, index);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public float getFloat(final long index) {
+        final long start = System.nanoTime();
+        final float value = delegate.getFloat(index);
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public void writeDouble(final double d) {
+        final long start = System.nanoTime();
+        delegate.writeDouble(d);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public double readDouble() {
+        final long start = System.nanoTime();
+        final double value = delegate.readDouble();
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public double getDouble(final long index) {
+        final long start = System.nanoTime();
+        final double value = delegate.getDouble(index);
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public void setDouble(final double d, final long index) {
+        final long start = System.nanoTime();
+        delegate.setDouble(d, index);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public void writeBoolean(final boolean b) {
+        final long start = System.nanoTime();
+        delegate.writeBoolean(b);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public boolean readBoolean() {
+        final long start = System.nanoTime();
+        final boolean value = delegate.readBoolean();
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public void setBoolean(final boolean b, final long index) {
+        final long start = System.nanoTime();
+        delegate.setBoolean(b, index);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public boolean getBoolean(final long index) {
+        final long start = System.nanoTime();
+        final boolean value = delegate.getBoolean(index);
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public void writeString(final String str, final Charset charset) {
+        final long start = System.nanoTime();
+        delegate.writeString(str, charset);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public void setString(final String str, final Charset charset, final long index) {
+        final long start = System.nanoTime();
+        delegate.setString(str, charset, index);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public String readString(final int length, final Charset charset) {
+        final long start = System.nanoTime();
+        final String value = delegate.readString(length, charset);
+        record(Operation.BULK_READ, start);
+        return value;
+    }
+
+    @Override
+    public String getString(final int length, final Charset charset, final long index) {
+        final long start = System.nanoTime();
+        final String value = delegate.getString(length, charset, index);
+        record(Operation.BULK_READ, start);
+        return value;
+    }
+
+    @Override
+    public void writeStringByte(final String str, final Charset charset) {
+        final long start = System.nanoTime();
+        delegate.writeStringByte(str, charset);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public void setStringByte(final String str, final Charset charset, final long index) {
+        final long start = System.nanoTime();
+        delegate.setStringByte(str, charset, index);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public String readStringByte(final Charset charset) {
+        final long start = System.nanoTime();
+        final String value = delegate.readStringByte(charset);
+        record(Operation.BULK_READ, start);
+        return value;
+    }
+
+    @Override
+    public String getStringByte(final Charset charset, final long index) {
+        final long start = System.nanoTime();
+        final String value = delegate.getStringByte(charset, index);
+        record(Operation.BULK_READ, start);
+        return value;
+    }
+
+    @Override
+    public void writeStringShort(final String str, final Charset charset) {
+        final long start = System.nanoTime();
+        delegate.writeStringShort(str, charset);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public void setStringShort(final String str, final Charset charset, final long index) {
+        final long start = System.nanoTime();
+        delegate.setStringShort(str, charset, index);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public String readStringShort(final Charset charset) {
+        final long start = System.nanoTime();
+        final String value = delegate.readStringShort(charset);
+        record(Operation.BULK_READ, start);
+        return value;
+    }
+
+    @Override
+    public String getStringShort(final Charset charset, final long index) {
+        final long start = System.nanoTime();
+        final String value = delegate.getStringShort(charset, index);
+        record(Operation.BULK_READ, start);
+        return value;
+    }
+
+    @Override
+    public void writeUUID(final UUID id) {
+        final long start = System.nanoTime();
+        delegate.writeUUID(id);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public UUID readUUID() {
+        final long start = System.nanoTime();
+        final UUID value = delegate.readUUID();
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public void writeBits(final long value, final int n) {
+        final long start = System.nanoTime();
+        delegate.writeBits(value, n);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public void flushBits() {
+        delegate.flushBits();
+    }
+
+    @Override
+    public long readBits(final int n) {
+        final long start = System.nanoTime();
+        final long value = delegate.readBits(n);
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public void alignBits() {
+        delegate.alignBits();
+    }
+
+    @Override
+    public void setUUID(final UUID id, final long index) {
+        final long start = System.nanoTime();
+        delegate.setUUID(id, index);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public UUID getUUID(final long index) {
+        final long start = System.nanoTime();
+        final UUID value = delegate.getUUID(index);
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public byte[] peek(final long offset, final int length) {
+        final long start = System.nanoTime();
+        final byte[] value = delegate.peek(offset, length);
+        record(Operation.BULK_READ, start);
+        return value;
+    }
+
+    @Override
+    public byte peek() {
+        final long start = System.nanoTime();
+        final byte value = delegate.peek();
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public byte peek(final long offset) {
+        final long start = System.nanoTime();
+        final byte value = delegate.peek(offset);
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public short peekShort() {
+        final long start = System.nanoTime();
+        final short value = delegate.peekShort();
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public short peekShort(final long offset) {
+        final long start = System.nanoTime();
+        final short value = delegate.peekShort(offset);
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public int peekInt() {
+        final long start = System.nanoTime();
+        final int value = delegate.peekInt();
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public int peekInt(final long offset) {
+        final long start = System.nanoTime();
+        final int value = delegate.peekInt(offset);
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public long peekLong() {
+        final long start = System.nanoTime();
+        final long value = delegate.peekLong();
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public long peekLong(final long offset) {
+        final long start = System.nanoTime();
+        final long value = delegate.peekLong(offset);
+        record(Operation.PRIMITIVE_READ, start);
+        return value;
+    }
+
+    @Override
+    public long available() {
+        return delegate.available();
+    }
+
+    @Override
+    public boolean ensure(final long bytes) {
+        final long start = System.nanoTime();
+        final boolean value = delegate.ensure(bytes);
+        record(Operation.BULK_READ, start);
+        return value;
+    }
+
+    @Override
+    public void mark(final int readLimit) {
+        delegate.mark(readLimit);
+    }
+
+    @Override
+    public void reset() {
+        delegate.reset();
+    }
+
+    @Override
+    public void copyFrom(final IOAccess access, final long index, final long offset, final int length) {
+        final long start = System.nanoTime();
+        delegate.copyFrom(access, index, offset, length);
+        record(Operation.COPY, start);
+    }
+
+    @Override
+    public void copyFrom(final IOAccess access, final long offset, final int length) {
+        final long start = System.nanoTime();
+        delegate.copyFrom(access, offset, length);
+        record(Operation.COPY, start);
+    }
+
+    @Override
+    public void copyFrom(final IOAccess access, final int length) {
+        final long start = System.nanoTime();
+        delegate.copyFrom(access, length);
+        record(Operation.COPY, start);
+    }
+
+    @Override
+    public IOAccess slice(final long length) {
+        return delegate.slice(length);
+    }
+
+    @Override
+    public IOAccess slice(final long index, final long length) {
+        return delegate.slice(index, length);
+    }
+
+    @Override
+    public IOCursor cursor(final long index, final long length) {
+        return delegate.cursor(index, length);
+    }
+
+    @Override
+    public ByteBuffer asByteBuffer() {
+        return delegate.asByteBuffer();
+    }
+
+    @Override
+    public ByteBuffer asByteBuffer(final long index, final int length) {
+        return delegate.asByteBuffer(index, length);
+    }
+
+    @Override
+    public int readFrom(final ReadableByteChannel channel, final long index, final int length) throws IOException {
+        final long start = System.nanoTime();
+        final int value = delegate.readFrom(channel, index, length);
+        record(Operation.WRITE, start);
+        return value;
+    }
+
+    @Override
+    public int readFrom(final ReadableByteChannel channel, final int length) throws IOException {
+        final long start = System.nanoTime();
+        final int value = delegate.readFrom(channel, length);
+        record(Operation.WRITE, start);
+        return value;
+    }
+
+    @Override
+    public int writeTo(final WritableByteChannel channel, final long index, final int length) throws IOException {
+        final long start = System.nanoTime();
+        final int value = delegate.writeTo(channel, index, length);
+        record(Operation.BULK_READ, start);
+        return value;
+    }
+
+    @Override
+    public int writeTo(final WritableByteChannel channel, final int length) throws IOException {
+        final long start = System.nanoTime();
+        final int value = delegate.writeTo(channel, length);
+        record(Operation.BULK_READ, start);
+        return value;
+    }
+
+    @Override
+    public void skip(final long bytes) {
+        delegate.skip(bytes);
+    }
+
+    @Override
+    public void flush() {
+        final long start = System.nanoTime();
+        delegate.flush();
+        record(Operation.FLUSH, start);
+    }
+
+    @Override
+    public void force() {
+        final long start = System.nanoTime();
+        delegate.force();
+        record(Operation.FLUSH, start);
+    }
+
+    @Override
+    public void force(final long index, final long length) {
+        final long start = System.nanoTime();
+        delegate.force(index, length);
+        record(Operation.FLUSH, start);
+    }
+
+    @Override
+    public void load() {
+        delegate.load();
+    }
+
+    @Override
+    public void load(final long index, final long length) {
+        delegate.load(index, length);
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return delegate.isLoaded();
+    }
+
+    @Override
+    public boolean isLoaded(final long index, final long length) {
+        return delegate.isLoaded(index, length);
+    }
+
+    @Override
+    public void unload() {
+        delegate.unload();
+    }
+
+    @Override
+    public void unload(final long index, final long length) {
+        delegate.unload(index, length);
+    }
+
+    @Override
+    public void release() {
+        delegate.release();
+    }
+
+    @Override
+    public IOAccess retain() {
+        delegate.retain();
+        return this;
+    }
+
+    @Override
+    public int referenceCount() {
+        return delegate.referenceCount();
+    }
+
+    @Override
+    boolean isReferenceCounted() {
+        return delegate.isReferenceCounted();
+    }
+
+    @Override
+    public IOAccess snapshot(final int pageSize) {
+        return delegate.snapshot(pageSize);
+    }
+
+    @Override
+    public void fill(final byte b) {
+        final long start = System.nanoTime();
+        delegate.fill(b);
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public void clear() {
+        final long start = System.nanoTime();
+        delegate.clear();
+        record(Operation.WRITE, start);
+    }
+
+    @Override
+    public ByteOrder getByteOrder() {
+        return delegate.getByteOrder();
+    }
+
+    @Override
+    public void setByteOrder(final @NotNull ByteOrder order) {
+        delegate.setByteOrder(order);
+    }
+
+    @Override
+    public void flip() {
+        delegate.flip();
+    }
+
+    @Override
+    public long remaining() {
+        return delegate.remaining();
+    }
+
+    @Override
+    public void setIndex(final long index) {
+        delegate.setIndex(index);
+    }
+
+    @Override
+    public boolean isOwned() {
+        return delegate.isOwned();
+    }
+
+    @Override
+    public @Nullable Long getOwner() {
+        return delegate.getOwner();
+    }
+
+    @Override
+    public boolean isReleased() {
+        return delegate.isReleased();
+    }
+
+    @Override
+    public long index() {
+        return delegate.index();
+    }
+
+    @Override
+    public long length() {
+        return delegate.length();
+    }
+
+    @Override
+    public boolean isIndexed() {
+        return delegate.isIndexed();
+    }
+
+    @Override
+    public boolean canWrite() {
+        return delegate.canWrite();
+    }
+
+    @Override
+    public boolean canRead() {
+        return delegate.canRead();
+    }
+
+    @Override
+    public void acquireOwnership() {
+        delegate.acquireOwnership();
+    }
+
+    @Override
+    public void setOwner(final Long threadId) {
+        delegate.setOwner(threadId);
+    }
+
+    @Override
+    public void setOwner(final Thread thread) {
+        delegate.setOwner(thread);
+    }
+}
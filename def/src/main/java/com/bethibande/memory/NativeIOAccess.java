@@ -1,5 +1,7 @@
 package com.bethibande.memory;
 
+import java.nio.ByteBuffer;
+
 final class NativeIOAccess extends IOAccess {
 
     private final IOScopedMemory accessible;
@@ -16,144 +18,171 @@ final class NativeIOAccess extends IOAccess {
         this.accessible = accessible;
     }
 
+    @Override
+    long address() {
+        return accessible.address();
+    }
+
+    @Override
+    ByteBuffer buffer(final long index, final int length) {
+        final long address = accessible.sharedAddress();
+        if(address < 0) return accessible.asByteBuffer(index, length);
+
+        return IOScopedMemory.bufferAt(address + index, length);
+    }
+
+    @Override
+    IOCursor createCursor(final long start, final long limit) {
+        final long address = accessible.address();
+        if(address < 0) return super.createCursor(start, limit);
+
+        return new IOCursor(null, address, start, limit, canRead(), canWrite());
+    }
+
+    public void fill(final long offset, final long length, final byte value) {
+        checkWrite();
+        checkWriteIndex(offset, length);
+        accessible.fill(offset, length, value);
+    }
+
     @Override
     public byte read() {
         checkRead();
         checkReadIndex(1);
-        return accessible.readByte();
+        return accessible.getByte(idx(1));
     }
 
     @Override
     public short readUByte() {
         checkRead();
         checkReadIndex(1);
-        return IOHelper.byteToUByte(accessible.readByte());
+        return IOHelper.byteToUByte(accessible.getByte(idx(1)));
     }
 
     @Override
     public short readShort() {
         checkRead();
         checkReadIndex(2);
-        return accessible.readShort();
+        return accessible.getShort(idx(2));
     }
 
     @Override
     public int readUShort() {
         checkRead();
         checkReadIndex(2);
-        return IOHelper.shortToUShort(accessible.readShort());
+        return IOHelper.shortToUShort(accessible.getShort(idx(2)));
     }
 
     @Override
     public int readInt() {
         checkRead();
         checkReadIndex(4);
-        return accessible.readInt();
+        return accessible.getInt(idx(4));
     }
 
     @Override
     public long readUInt() {
         checkRead();
         checkReadIndex(4);
-        return IOHelper.intToUInt(accessible.readInt());
+        return IOHelper.intToUInt(accessible.getInt(idx(4)));
     }
 
     @Override
     public long readLong() {
         checkRead();
         checkReadIndex(8);
-        return accessible.readLong();
+        return accessible.getLong(idx(8));
     }
 
     @Override
     public float readFloat() {
         checkRead();
         checkReadIndex(4);
-        return accessible.readFloat();
+        return accessible.getFloat(idx(4));
     }
 
     @Override
     public double readDouble() {
         checkRead();
         checkReadIndex(8);
-        return accessible.readDouble();
+        return accessible.getDouble(idx(8));
     }
 
     @Override
     public boolean readBoolean() {
         checkRead();
         checkReadIndex(1);
-        return accessible.readBoolean();
+        return accessible.getBoolean(idx(1));
     }
 
     @Override
     public void write(final byte b) {
         checkWrite();
         checkWriteIndex(1);
-        accessible.writeByte(b);
+        accessible.setByte(idx(1), b);
     }
 
     @Override
     public void writeUByte(final short b) {
         checkWrite();
         checkWriteIndex(1);
-        accessible.writeByte(IOHelper.uByteToByte(b));
+        accessible.setByte(idx(1), IOHelper.uByteToByte(b));
     }
 
     @Override
     public void writeShort(final short s) {
         checkWrite();
         checkWriteIndex(2);
-        accessible.writeShort(s);
+        accessible.setShort(idx(2), s);
     }
 
     @Override
     public void writeUShort(final int s) {
         checkWrite();
         checkWriteIndex(2);
-        accessible.writeShort(IOHelper.uShortToShort(s));
+        accessible.setShort(idx(2), IOHelper.uShortToShort(s));
     }
 
     @Override
     public void writeInt(final int i) {
         checkWrite();
         checkWriteIndex(4);
-        accessible.writeInt(i);
+        accessible.setInt(idx(4), i);
     }
 
     @Override
     public void writeUInt(final long i) {
         checkWrite();
         checkWriteIndex(4);
-        accessible.writeInt(IOHelper.uIntToInt(i));
+        accessible.setInt(idx(4), IOHelper.uIntToInt(i));
     }
 
     @Override
     public void writeLong(final long l) {
         checkWrite();
         checkWriteIndex(8);
-        accessible.writeLong(l);
+        accessible.setLong(idx(8), l);
     }
 
     @Override
     public void writeFloat(final float f) {
         checkWrite();
         checkWriteIndex(4);
-        accessible.writeFloat(f);
+        accessible.setFloat(idx(4), f);
     }
 
     @Override
     public void writeDouble(final double d) {
         checkWrite();
         checkWriteIndex(8);
-        accessible.writeDouble(d);
+        accessible.setDouble(idx(8), d);
     }
 
     @Override
     public void writeBoolean(final boolean b) {
         checkWrite();
         checkWriteIndex(1);
-        accessible.writeBoolean(b);
+        accessible.setBoolean(idx(1), b);
     }
 
     @Override
@@ -1,21 +1,30 @@
 package com.bethibande.memory;
 
+import org.jetbrains.annotations.NotNull;
 import sun.misc.Unsafe;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * This is a class used for unsafe memory access.
  * Only use this if you truly know what you are doing.
  * This does not merely encapsulates the sun.misc.Unsafe class and does not contain <b>any</b>
  * safety checks.
- * Incorrect use of this class, will corrupt memory and or crash the jvm.
+ * Incorrect use of this class, will corrupt memory and or crash the jvm. <br>
+ * The memory is reference counted, the access and all of its slices share an {@link Allocation},
+ * which is freed once every reference has been released. Released accesses fail with an {@link IllegalStateException}. <br>
+ * Snapshots share the allocation as well, writers and cursors copy pages of open snapshots before modifying them.
+ * Writable buffers and raw addresses handed out by the access are not tracked, they expose the allocation
+ * and prevent further snapshots. <br>
+ * Multi-byte values are read and written using the implementation of {@link IOPrimitives} matching the byte order,
+ * chosen once by {@link #setByteOrder(ByteOrder)}, so accesses in native byte order never check the byte order.
  */
 final class UnsafeIOAccess extends IOAccess implements AutoCloseable {
 
-    private final List<UnsafeIOAccess> slices = new ArrayList<>();
-    
     private static final byte ZERO = 0x00;
     private static final long ADDRESS_FREED = -1L;
     private static final long BYTE_ARRAY_BASE_OFFSET;
@@ -33,20 +42,337 @@ final class UnsafeIOAccess extends IOAccess implements AutoCloseable {
     }
 
     public static UnsafeIOAccess allocate(final long size) {
+        final IOEvents.Allocation event = IOEvents.allocation();
         final long address = UNSAFE.allocateMemory(size);
+        IOEvents.allocation(event, "unsafe", size);
 
         return new UnsafeIOAccess(address, size);
     }
 
+    /**
+     * Memory allocated by {@link #allocate(long)}, shared by the access and all of its slices.
+     * The memory is freed once every reference has been released.
+     */
+    private static final class Allocation implements IOCursor.WriteBarrier {
+
+        private final long address;
+        private final long size;
+        private final AtomicInteger references = new AtomicInteger(1);
+        /**
+         * The open snapshots of the allocation, null if there are none so writes only check a single field
+         */
+        private volatile Snapshot[] snapshots = null;
+        /**
+         * Whether writable buffers or raw addresses of the allocation have been handed out, guarded by the monitor
+         */
+        private boolean exposed = false;
+
+        private Allocation(final long address, final long size) {
+            this.address = address;
+            this.size = size;
+
+            IOStatistics.allocated("unsafe", size);
+        }
+
+        private void retain() {
+            int current;
+            do {
+                current = references.get();
+                if(current <= 0) throw new IllegalStateException("The memory has already been freed.");
+            } while(!references.compareAndSet(current, current + 1));
+        }
+
+        private void release() {
+            final int remaining = references.decrementAndGet();
+            if(remaining < 0) throw new IllegalStateException("The memory has already been freed.");
+            if(remaining > 0) return;
+
+            final IOEvents.Free event = IOEvents.free();
+            UNSAFE.freeMemory(address);
+            IOEvents.free(event, "unsafe", size);
+            IOStatistics.freed("unsafe", size);
+        }
+
+        /**
+         * @throws IllegalStateException if the allocation has been exposed, writes to it cannot be tracked
+         */
+        private synchronized void open(final Snapshot snapshot) {
+            if(exposed) throw new IllegalStateException("Cannot snapshot memory shared through writable buffers or raw addresses.");
+
+            final Snapshot[] snapshots = this.snapshots;
+            if(snapshots == null) {
+                this.snapshots = new Snapshot[] { snapshot };
+                return;
+            }
+
+            final Snapshot[] copy = Arrays.copyOf(snapshots, snapshots.length + 1);
+            copy[snapshots.length] = snapshot;
+            this.snapshots = copy;
+        }
+
+        private synchronized void close(final Snapshot snapshot) {
+            final Snapshot[] snapshots = this.snapshots;
+            if(snapshots == null) return;
+
+            final Snapshot[] remaining = Arrays.stream(snapshots).filter(open -> open != snapshot).toArray(Snapshot[]::new);
+            this.snapshots = remaining.length == 0 ? null: remaining;
+        }
+
+        /**
+         * Marks the allocation as exposed, copying the pages of all open snapshots overlapping the given region
+         * since writes to it are no longer tracked
+         */
+        private synchronized void expose(final long address, final long length) {
+            exposed = true;
+            preserve(address, length);
+        }
+
+        @Override
+        public void beforeWrite(final long address, final long length) {
+            preserve(address, length);
+        }
+
+        /**
+         * Copies the pages of all open snapshots overlapping the given region, called before the region is modified
+         */
+        private void preserve(final long address, final long length) {
+            final Snapshot[] snapshots = this.snapshots;
+            if(snapshots == null) return;
+
+            for(Snapshot snapshot : snapshots) {
+                snapshot.preserve(address, length);
+            }
+        }
+    }
+
+    /**
+     * A point-in-time view of a region of an allocation. Pages are copied by the writer before they are modified
+     * for the first time, reads of pages that have not been copied read the allocation directly. <br>
+     * A page table entry is 0 while the page has not been copied, the address of the copy once it has been copied
+     * and {@link #CLOSED} once the snapshot has been released.
+     * Readers re-check the entry after reading the allocation, if the page has been copied in the meantime
+     * the read may have observed a modification and is repeated using the copy.
+     */
+    private static final class Snapshot implements IOAccessible {
+
+        private static final long CLOSED = -1L;
+
+        private final Allocation allocation;
+        private final long start;
+        private final long size;
+        private final int shift;
+        private final long mask;
+        private final AtomicLongArray pages;
+        private long position = 0L;
+
+        private Snapshot(final Allocation allocation, final long start, final long size, final int pageSize) {
+            final long pages = (size + pageSize - 1) / pageSize;
+            if(pages > Integer.MAX_VALUE) throw new IllegalArgumentException("The page size %d is too small for %d bytes.".formatted(pageSize, size));
+
+            this.allocation = allocation;
+            this.start = start;
+            this.size = size;
+            this.shift = Integer.numberOfTrailingZeros(pageSize);
+            this.mask = pageSize - 1;
+            this.pages = new AtomicLongArray((int) pages);
+        }
+
+        private void preserve(final long address, final long length) {
+            final long from = Math.max(address, start) - start;
+            final long to = Math.min(address + length, start + size) - start;
+            if(from >= to) return;
+
+            final int last = (int) ((to - 1) >>> shift);
+            for(int page = (int) (from >>> shift); page <= last; page++) {
+                if(pages.get(page) != 0L) continue;
+
+                final long offset = (long) page << shift;
+                final long bytes = Math.min(mask + 1, size - offset);
+                final long copy = UNSAFE.allocateMemory(bytes);
+                UNSAFE.copyMemory(start + offset, copy, bytes);
+
+                if(pages.compareAndSet(page, 0L, copy)) {
+                    IOStatistics.allocated("snapshot", bytes);
+                } else {
+                    UNSAFE.freeMemory(copy);
+                }
+            }
+        }
+
+        private void get(final long index, final byte[] dst, final int off, final int len) {
+            long position = index;
+            int done = 0;
+            while(done < len) {
+                final int page = (int) (position >>> shift);
+                final long offset = position & mask;
+                final int bytes = (int) Math.min(len - done, mask + 1 - offset);
+
+                long copy = pages.get(page);
+                if(copy == 0L) {
+                    UNSAFE.copyMemory(null, start + position, dst, BYTE_ARRAY_BASE_OFFSET + off + done, bytes);
+                    UNSAFE.loadFence();
+                    copy = pages.get(page);
+                }
+                if(copy != 0L) UNSAFE.copyMemory(null, copy + offset, dst, BYTE_ARRAY_BASE_OFFSET + off + done, bytes);
+
+                position += bytes;
+                done += bytes;
+            }
+        }
+
+        @Override
+        public String backend() {
+            return "snapshot";
+        }
+
+        @Override
+        public void setIndex(final long index) {
+            this.position = index;
+        }
+
+        @Override
+        public void skip(final long bytes) {
+            this.position += bytes;
+        }
+
+        @Override
+        public void flush() {
+            throw new UnsupportedOperationException("Flushing not supported");
+        }
+
+        /**
+         * Frees all copied pages and releases the reference to the allocation
+         */
+        @Override
+        public void release() {
+            allocation.close(this);
+            for(int page = 0; page < pages.length(); page++) {
+                final long copy = pages.getAndSet(page, CLOSED);
+                if(copy == 0L || copy == CLOSED) continue;
+
+                UNSAFE.freeMemory(copy);
+                IOStatistics.freed("snapshot", Math.min(mask + 1, size - ((long) page << shift)));
+            }
+
+            allocation.release();
+        }
+
+        @Override
+        public byte read() {
+            return get(position++);
+        }
+
+        @Override
+        public byte[] read(final int len) {
+            final byte[] data = get(position, len);
+            position += len;
+            return data;
+        }
+
+        @Override
+        public byte get(final long index) {
+            final int page = (int) (index >>> shift);
+            long copy = pages.get(page);
+            if(copy == 0L) {
+                final byte value = UNSAFE.getByte(start + index);
+                UNSAFE.loadFence();
+                copy = pages.get(page);
+                if(copy == 0L) return value;
+            }
+
+            return UNSAFE.getByte(copy + (index & mask));
+        }
+
+        @Override
+        public byte[] get(final long index, final int length) {
+            final byte[] data = new byte[length];
+            get(index, data, 0, length);
+            return data;
+        }
+
+        @Override
+        public void write(final byte b) {
+            throw new UnsupportedOperationException("Snapshots are read-only.");
+        }
+
+        @Override
+        public void write(final byte[] data, final int off, final int len) {
+            throw new UnsupportedOperationException("Snapshots are read-only.");
+        }
+
+        @Override
+        public void set(final byte b, final long index) {
+            throw new UnsupportedOperationException("Snapshots are read-only.");
+        }
+
+        @Override
+        public void set(final byte[] b, final long index, final int off, final int len) {
+            throw new UnsupportedOperationException("Snapshots are read-only.");
+        }
+
+        @Override
+        public void copyFrom(final IOAccessible accessible, final long index, final long offset, final int length) {
+            throw new UnsupportedOperationException("Snapshots are read-only.");
+        }
+
+        @Override
+        public void copyFrom(final IOAccessible accessible, final long offset, final int length) {
+            throw new UnsupportedOperationException("Snapshots are read-only.");
+        }
+
+        @Override
+        public void copyFrom(final IOAccessible accessible, final int length) {
+            throw new UnsupportedOperationException("Snapshots are read-only.");
+        }
+    }
+
+    private final Allocation allocation;
     private long address;
     private final long size;
+    private IOPrimitives primitives = IOPrimitives.NATIVE;
+    /**
+     * The number of references to the allocation held by this access
+     */
+    private int references = 1;
 
+    /**
+     * Creates an access owning the memory at the given address, the memory must have been allocated using Unsafe
+     */
     public UnsafeIOAccess(final long address, final long size) {
+        this(new Allocation(address, size), address, size, true);
+    }
+
+    /**
+     * @param allocation the allocation the memory belongs to, a reference must have been acquired for the new access
+     * @param initialize whether to fill the memory with 0, slices share the memory of their parent and must not be initialized
+     */
+    private UnsafeIOAccess(final Allocation allocation, final long address, final long size, final boolean initialize) {
         super(0L, size, true, true, true, null);
+        this.allocation = allocation;
         this.address = address;
         this.size = size;
 
-        this.init();
+        if(initialize) this.init();
+    }
+
+    /**
+     * @return the address of the given offset
+     * @throws IllegalStateException if the access has already been released
+     */
+    private long at(final long offset) {
+        final long address = this.address;
+        if(address == ADDRESS_FREED) throw new IllegalStateException("The access has already been released.");
+        return address + offset;
+    }
+
+    /**
+     * Returns the address of the given offset, copying the pages of open snapshots before the region is modified
+     * @throws IllegalStateException if the access has already been released
+     */
+    private long at(final long offset, final long length) {
+        final long address = at(offset);
+        if(this.allocation.snapshots != null) this.allocation.preserve(address, length);
+        return address;
     }
 
     /**
@@ -62,24 +388,40 @@ final class UnsafeIOAccess extends IOAccess implements AutoCloseable {
         this.free();
     }
 
+    /**
+     * Releases all references held by this access, calling this method multiple times has no effect.
+     * The memory is freed once the access and all of its slices have been released.
+     */
     public void free() {
-        if(this.address == ADDRESS_FREED) return;
-
-        for(UnsafeIOAccess slice : this.slices) {
-            slice.freeSlice();
+        while(this.references > 0) {
+            this.release();
         }
-        
-        UNSAFE.freeMemory(this.address);
-        this.address = ADDRESS_FREED;
     }
 
     /**
-     * Used to free a slice, this doesn't free the memory, since the slices memory will be freed by the parent anyways
+     * Acquires an additional reference, every reference must be released using {@link #release()}
      */
-    private void freeSlice() {
-        if(this.address == ADDRESS_FREED) return;
-        
-        this.address = ADDRESS_FREED;
+    @Override
+    public IOAccess retain() {
+        if(this.references <= 0) throw new IllegalStateException("The access has already been released.");
+
+        this.allocation.retain();
+        this.references++;
+        return this;
+    }
+
+    /**
+     * @return the number of references to the memory held by this access and its slices, or 0 if the access has been released
+     */
+    @Override
+    public int referenceCount() {
+        if(this.references <= 0) return 0;
+        return this.allocation.references.get();
+    }
+
+    @Override
+    boolean isReferenceCounted() {
+        return true;
     }
 
     @Override
@@ -97,9 +439,41 @@ final class UnsafeIOAccess extends IOAccess implements AutoCloseable {
         throw new UnsupportedOperationException("Flushing not supported");
     }
 
+    @Override
+    public void force() {
+        throw new UnsupportedOperationException("Native memory is not backed by a storage device");
+    }
+
+    @Override
+    public void force(final long index, final long length) {
+        throw new UnsupportedOperationException("Native memory is not backed by a storage device");
+    }
+
+    @Override
+    public void load(final long index, final long length) {
+        throw new UnsupportedOperationException("Native memory is not a memory mapped file");
+    }
+
+    @Override
+    public boolean isLoaded(final long index, final long length) {
+        throw new UnsupportedOperationException("Native memory is not a memory mapped file");
+    }
+
+    @Override
+    public void unload(final long index, final long length) {
+        throw new UnsupportedOperationException("Native memory is not a memory mapped file");
+    }
+
+    /**
+     * Releases a single reference held by this access, once the access released all of its references it may no longer be used.
+     * @throws IllegalStateException if the access has already been released
+     */
     @Override
     public void release() {
-        this.free();
+        if(this.references <= 0) throw new IllegalStateException("The access has already been released.");
+
+        if(--this.references == 0) this.address = ADDRESS_FREED;
+        this.allocation.release();
     }
 
     @Override
@@ -112,33 +486,130 @@ final class UnsafeIOAccess extends IOAccess implements AutoCloseable {
         this.fill(0, size, ZERO);
     }
 
+    /**
+     * Sets the byte order used to read/write multi-byte values, values are swapped if the order isn't the native byte order
+     */
+    @Override
+    public void setByteOrder(final @NotNull ByteOrder order) {
+        super.setByteOrder(order);
+        this.primitives = IOPrimitives.of(order);
+    }
+
     @Override
     public boolean isReleased() {
         return this.address == ADDRESS_FREED;
     }
 
+    @Override
+    String backend() {
+        return "unsafe";
+    }
+
+    /**
+     * Exposes the allocation, see {@link #snapshot(int)}
+     */
+    @Override
+    long address() {
+        final long address = at(0);
+        this.allocation.expose(address, this.size);
+        return address;
+    }
+
+    @Override
+    ByteBuffer buffer(final long index, final int length) {
+        return IOScopedMemory.bufferAt(at(index), length);
+    }
+
+    @Override
+    ByteBuffer writableBuffer(final long index, final int length) {
+        return IOScopedMemory.bufferAt(at(index, length), length);
+    }
+
+    /**
+     * Exposes the allocation, see {@link #snapshot(int)}
+     */
+    @Override
+    ByteBuffer sharedBuffer(final long index, final int length) {
+        final long address = at(index);
+        final ByteBuffer buffer = IOScopedMemory.bufferAt(address, length);
+        if(buffer != null) this.allocation.expose(address, length);
+        return buffer;
+    }
+
+    /**
+     * Creates a cursor copying the pages of open snapshots before every write
+     */
+    @Override
+    IOCursor createCursor(final long start, final long limit) {
+        return new IOCursor(null, at(start) - start, start, limit, true, true, this.allocation);
+    }
+
     public void copy(final long offset, final long length, final long destination) {
-        UNSAFE.copyMemory(this.address + offset, destination, length);
+        UNSAFE.copyMemory(at(offset), destination, length);
     }
 
     public void fill(final long offset, final long length, final byte value) {
-        UNSAFE.setMemory(this.address + offset, length, value);
+        final IOEvents.Bulk event = IOEvents.bulk(length);
+        UNSAFE.setMemory(at(offset, length), length, value);
+        IOEvents.bulk(event, "fill", "unsafe", length);
     }
 
+    /**
+     * Creates a slice sharing the memory of this access, the slice holds its own reference to the memory.
+     * The memory stays valid until this access and all slices have been released.
+     */
     @Override
     public IOAccess slice(final long index, final long length) {
-        final UnsafeIOAccess slice = new UnsafeIOAccess(this.address + index, length);
-        this.slices.add(slice);
-        return slice;
+        final long address = at(index);
+        this.allocation.retain();
+
+        IOStatistics.slice();
+        return new UnsafeIOAccess(this.allocation, address, length, false);
+    }
+
+    /**
+     * Creates a read-only snapshot of this access using copy-on-write pages of the given size.
+     * Writes made through this access or any access sharing its memory copy a page before modifying it
+     * for the first time, the snapshot reads the copy once it exists and the shared memory otherwise.
+     * The snapshot holds its own reference to the memory. <br>
+     * Cursors copy pages before writing as well, including cursors created before the snapshot. <br>
+     * <b>!! Note:</b> The snapshot contains all writes completed before this method is called,
+     * writes in progress on other threads may be partially visible.
+     * Writes through writable {@link ByteBuffer} views or raw addresses cannot be tracked, once such a view
+     * of the memory has been created, e.g. by {@link #asByteBuffer(long, int)} on a writable access,
+     * snapshots of the memory can no longer be created.
+     * @param pageSize the size of a page in bytes, must be a power of two
+     * @throws IllegalStateException if writable buffers or raw addresses of the memory have been handed out
+     */
+    @Override
+    public IOAccess snapshot(final int pageSize) {
+        checkOwnership();
+        if(pageSize <= 0 || Integer.bitCount(pageSize) != 1) throw new IllegalArgumentException("The page size must be a power of two.");
+
+        final long address = at(0);
+        final Snapshot snapshot = new Snapshot(this.allocation, address, this.size, pageSize);
+        this.allocation.retain();
+        try {
+            this.allocation.open(snapshot);
+        } catch (IllegalStateException e) {
+            this.allocation.release();
+            throw e;
+        }
+
+        final IOAccess view = new IOAccess(0L, this.size, true, false, true, snapshot);
+        view.setByteOrder(getByteOrder());
+        return view;
     }
 
     @Override
     public void write(final byte[] data, final int offset, final int length) {
+        IOStatistics.written("unsafe", length);
         this.copyFromHeap(data, offset, super.idx(length), length);
     }
 
     @Override
     public byte[] read(final int length) {
+        IOStatistics.read("unsafe", length);
         final byte[] arr = new byte[length];
         this.copyToHeap(super.idx(length), arr, 0, length);
         return arr;
@@ -146,6 +617,7 @@ final class UnsafeIOAccess extends IOAccess implements AutoCloseable {
 
     @Override
     public byte[] get(final long index, final int length) {
+        IOStatistics.read("unsafe", length);
         final byte[] arr = new byte[length];
         this.copyToHeap(index, arr, 0, length);
         return arr;
@@ -153,6 +625,7 @@ final class UnsafeIOAccess extends IOAccess implements AutoCloseable {
 
     @Override
     public void set(final byte[] data, final long index, final int off, final int len) {
+        IOStatistics.written("unsafe", len);
         this.copyFromHeap(data, off, index, len);
     }
 
@@ -266,7 +739,7 @@ final class UnsafeIOAccess extends IOAccess implements AutoCloseable {
 
     @Override
     public void set(final byte b, final long offset) {
-        UNSAFE.putByte(null, this.address + offset, b);
+        UNSAFE.putByte(null, at(offset, 1), b);
     }
 
     @Override
@@ -276,7 +749,7 @@ final class UnsafeIOAccess extends IOAccess implements AutoCloseable {
 
     @Override
     public void setShort(final short s, final long offset) {
-        UNSAFE.putShort(null, this.address + offset, s);
+        primitives.putShort(at(offset, 2), s);
     }
 
     @Override
@@ -286,7 +759,7 @@ final class UnsafeIOAccess extends IOAccess implements AutoCloseable {
 
     @Override
     public void setInt(final int i, final long offset) {
-        UNSAFE.putInt(null, this.address + offset, i);
+        primitives.putInt(at(offset, 4), i);
     }
 
     @Override
@@ -296,31 +769,31 @@ final class UnsafeIOAccess extends IOAccess implements AutoCloseable {
 
     @Override
     public void setLong(final long l, final long offset) {
-        UNSAFE.putLong(null, this.address + offset, l);
+        primitives.putLong(at(offset, 8), l);
     }
 
     @Override
     public void setFloat(final float f, final long offset) {
-        UNSAFE.putFloat(null, this.address + offset, f);
+        primitives.putInt(at(offset, 4), Float.floatToRawIntBits(f));
     }
 
     @Override
     public void setDouble(final double d, final long offset) {
-        UNSAFE.putDouble(null, this.address + offset, d);
+        primitives.putLong(at(offset, 8), Double.doubleToRawLongBits(d));
     }
 
     @Override
     public void setBoolean(final boolean b, final long offset) {
-        UNSAFE.putBoolean(null, this.address + offset, b);
+        UNSAFE.putBoolean(null, at(offset, 1), b);
     }
 
     public void setChar(final char c, final long offset) {
-        UNSAFE.putChar(null, this.address + offset, c);
+        primitives.putShort(at(offset, 2), (short) c);
     }
 
     @Override
     public byte get(final long offset) {
-        return UNSAFE.getByte(null, this.address + offset);
+        return UNSAFE.getByte(null, at(offset));
     }
 
     @Override
@@ -330,7 +803,7 @@ final class UnsafeIOAccess extends IOAccess implements AutoCloseable {
 
     @Override
     public short getShort(final long offset) {
-        return UNSAFE.getShort(null, this.address + offset);
+        return primitives.getShort(at(offset));
     }
 
     @Override
@@ -340,7 +813,7 @@ final class UnsafeIOAccess extends IOAccess implements AutoCloseable {
 
     @Override
     public int getInt(final long offset) {
-        return UNSAFE.getInt(null, this.address + offset);
+        return primitives.getInt(at(offset));
     }
 
     @Override
@@ -350,31 +823,34 @@ final class UnsafeIOAccess extends IOAccess implements AutoCloseable {
 
     @Override
     public long getLong(final long offset) {
-        return UNSAFE.getLong(null, this.address + offset);
+        return primitives.getLong(at(offset));
     }
 
     @Override
     public float getFloat(final long offset) {
-        return UNSAFE.getFloat(null, this.address + offset);
+        return Float.intBitsToFloat(primitives.getInt(at(offset)));
     }
 
     @Override
     public double getDouble(final long offset) {
-        return UNSAFE.getDouble(null, this.address + offset);
+        return Double.longBitsToDouble(primitives.getLong(at(offset)));
     }
 
     @Override
     public boolean getBoolean(final long offset) {
-        return UNSAFE.getBoolean(null, this.address + offset);
+        return UNSAFE.getBoolean(null, at(offset));
     }
 
     public char getChar(final long offset) {
-        return UNSAFE.getChar(null, this.address + offset);
+        return (char) primitives.getShort(at(offset));
     }
 
     @Override
     public void copyFrom(final IOAccess access, final long index, final long offset, final int length) {
+        IOStatistics.written("unsafe", length);
+        final IOEvents.Bulk event = IOEvents.bulk(length);
         this.copyFromHeap(access.get(offset, length), 0, index, length);
+        IOEvents.bulk(event, "copyFrom", "unsafe", length);
     }
 
     /**
@@ -385,7 +861,7 @@ final class UnsafeIOAccess extends IOAccess implements AutoCloseable {
      * @param size the amount of bytes to copy starting at the given offset
      */
     public void copyFromHeap(final byte[] arr, final long off, final long dest, final long size) {
-        UNSAFE.copyMemory(arr, BYTE_ARRAY_BASE_OFFSET + off, null, this.address + dest, size);
+        UNSAFE.copyMemory(arr, BYTE_ARRAY_BASE_OFFSET + off, null, at(dest, size), size);
     }
 
     /**
@@ -396,7 +872,7 @@ final class UnsafeIOAccess extends IOAccess implements AutoCloseable {
      * @param size the amount of bytes to copy
      */
     public void copyToHeap(final long src, final byte[] arr, final long off, final int size) {
-        UNSAFE.copyMemory(null, this.address + src, arr, BYTE_ARRAY_BASE_OFFSET + off, size);
+        UNSAFE.copyMemory(null, at(src), arr, BYTE_ARRAY_BASE_OFFSET + off, size);
     }
 
 }
@@ -0,0 +1,93 @@
+package com.bethibande.memory;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loopback harness for {@link IOEventLoop}, a client sends length-prefixed messages to a server on the loopback
+ * interface, the server sums the payloads. A second client makes the server callback throw,
+ * the loop must close that connection and keep serving the first client. <br>
+ * Run using <code>java --add-modules jdk.incubator.foreign --enable-native-access=ALL-UNNAMED</code>,
+ * optionally passing the number of messages, exits with status 1 if the run fails.
+ */
+public class IOEventLoopLoopback {
+
+    private static final int MESSAGE_SIZE = 12;
+    private static final int POISON = -1;
+
+    public static void main(final String[] args) throws Exception {
+        final long messages = args.length > 0 ? Long.parseLong(args[0]): 100_000L;
+        final long expected = messages * (messages + 1) / 2;
+
+        final AtomicLong sum = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(1);
+        final CountDownLatch poisoned = new CountDownLatch(1);
+
+        try(final IOEventLoop loop = new IOEventLoop("loopback", 64 * 1024, 4 * 1024 * 1024);
+            final ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+            loop.listen(server, connection -> receive(connection, sum, done));
+
+            loop.connect(server.getLocalAddress(), connection -> {
+                connection.onClose(closed -> poisoned.countDown());
+                final IOAccess message = IOAccess.unsafe(MESSAGE_SIZE);
+                message.setInt(POISON, 0);
+                message.setLong(0L, 4);
+                connection.write(message, 0, MESSAGE_SIZE);
+                message.release();
+            });
+            if(!poisoned.await(10, TimeUnit.SECONDS)) fail("Connection with a failing callback was not closed.");
+
+            final long start = System.nanoTime();
+            loop.connect(server.getLocalAddress(), connection -> {
+                final IOAccess message = IOAccess.unsafe(MESSAGE_SIZE);
+                for(long i = 1; i <= messages + 1; i++) {
+                    message.setInt(i <= messages ? 8: 0, 0);
+                    message.setLong(i <= messages ? i: 0L, 4);
+                    connection.write(message, 0, MESSAGE_SIZE);
+                }
+                message.release();
+            });
+
+            if(!done.await(60, TimeUnit.SECONDS)) fail("Timed out after receiving a sum of %d.".formatted(sum.get()));
+            if(sum.get() != expected) fail("Received a sum of %d, expected %d.".formatted(sum.get(), expected));
+
+            final long elapsed = System.nanoTime() - start;
+            System.out.printf("%d messages in %.1f ms%n", messages, elapsed / 1_000_000.0d);
+        }
+    }
+
+    /**
+     * Reads messages consisting of an int header and a long payload. A header of 0 marks the last message,
+     * a negative header makes the callback throw.
+     */
+    private static void receive(final IOConnection connection, final AtomicLong sum, final CountDownLatch done) {
+        connection.onAvailable(MESSAGE_SIZE, available -> {
+            while(available.available() >= MESSAGE_SIZE) {
+                final IOCursor cursor = available.cursor();
+                final int header = cursor.readInt();
+                final long value = cursor.readLong();
+                available.consume(MESSAGE_SIZE);
+
+                if(header == POISON) throw new IllegalStateException("Poison message received.");
+                if(header == 0) {
+                    done.countDown();
+                    return;
+                }
+                sum.addAndGet(value);
+            }
+
+            receive(available, sum, done);
+        });
+    }
+
+    private static void fail(final String message) {
+        System.err.println(message);
+        System.exit(1);
+    }
+}
@@ -1,5 +1,6 @@
 package com.bethibande.memory;
 
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 /**
@@ -14,6 +15,13 @@ interface IOAccessible {
 
     default void setByteOrder(final ByteOrder order) { }
 
+    /**
+     * @return the name of the backend, used by events and metrics
+     */
+    default String backend() {
+        return getClass().getSimpleName();
+    }
+
     default boolean canSlice() {
         return false;
     }
@@ -22,12 +30,93 @@ interface IOAccessible {
         return null;
     }
 
+    /**
+     * Returns a {@link ByteBuffer} view of the given region without copying, or null if the underlying
+     * target cannot be viewed as a buffer (e.g. streams or files)
+     */
+    default ByteBuffer asByteBuffer(final long index, final int length) {
+        return null;
+    }
+
     void setIndex(final long index);
     void skip(final long bytes);
 
     void flush();
     void release();
 
+    /**
+     * Writes all changes to the storage device backing this accessible
+     */
+    default void force() {
+        throw new UnsupportedOperationException("IOAccessible does not support force operations");
+    }
+
+    /**
+     * Writes changes within the given region to the storage device backing this accessible
+     */
+    default void force(final long index, final long length) {
+        force();
+    }
+
+    /**
+     * Loads the given region of a memory mapped file into physical memory
+     */
+    default void load(final long index, final long length) {
+        throw new UnsupportedOperationException("IOAccessible does not support load operations");
+    }
+
+    /**
+     * @return whether the given region of a memory mapped file is likely resident in physical memory
+     */
+    default boolean isLoaded(final long index, final long length) {
+        throw new UnsupportedOperationException("IOAccessible does not support load operations");
+    }
+
+    /**
+     * Hints that the given region of a memory mapped file is no longer needed in physical memory
+     */
+    default void unload(final long index, final long length) {
+        throw new UnsupportedOperationException("IOAccessible does not support load operations");
+    }
+
+    /**
+     * Returns the given number of bytes at the given offset from the current position, without consuming them
+     * @throws IndexOutOfBoundsException if the end of the target is reached before the requested bytes
+     */
+    default byte[] peek(final long offset, final int length) {
+        throw new UnsupportedOperationException("IOAccessible does not support lookahead.");
+    }
+
+    /**
+     * Blocks until the given number of bytes can be read without blocking
+     * @return false if the end of the target is reached before
+     */
+    default boolean ensure(final long bytes) {
+        throw new UnsupportedOperationException("IOAccessible does not support lookahead.");
+    }
+
+    /**
+     * @return the number of bytes which can be read without blocking
+     */
+    default long available() {
+        throw new UnsupportedOperationException("IOAccessible does not support lookahead.");
+    }
+
+    /**
+     * Marks the current position, bytes read after the mark are retained until more than readLimit bytes have been read
+     */
+    default void mark(final int readLimit) {
+        throw new UnsupportedOperationException("IOAccessible does not support mark/reset.");
+    }
+
+    /**
+     * Returns to the marked position
+     * @return the number of bytes the position moved back
+     */
+    default long reset() {
+        throw new UnsupportedOperationException("IOAccessible does not support mark/reset.");
+    }
+
     byte read();
     byte[] read(final int len);
 
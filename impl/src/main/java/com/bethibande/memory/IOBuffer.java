@@ -3,6 +3,8 @@ package com.bethibande.memory;
 import jdk.incubator.foreign.MemorySegment;
 import jdk.incubator.foreign.ResourceScope;
 
+import java.nio.ByteBuffer;
+
 class IOBuffer implements IOAccessible {
 
     private byte[] buffer;
@@ -12,6 +14,18 @@ class IOBuffer implements IOAccessible {
         this.buffer = buffer;
     }
 
+    /**
+     * @return the byte array backing this buffer
+     */
+    public byte[] array() {
+        return buffer;
+    }
+
+    @Override
+    public String backend() {
+        return "heap";
+    }
+
     @Override
     public boolean canSlice() {
         return true;
@@ -24,6 +38,11 @@ class IOBuffer implements IOAccessible {
         return new IOScopedMemory(scope, segment.asSlice(index, length));
     }
 
+    @Override
+    public ByteBuffer asByteBuffer(final long index, final int length) {
+        return ByteBuffer.wrap(buffer, (int) index, length).slice();
+    }
+
     @Override
     public void setIndex(final long index) {
         this.index =  (int) index;
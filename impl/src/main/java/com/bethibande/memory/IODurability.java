@@ -0,0 +1,65 @@
+package com.bethibande.memory;
+
+import java.time.Duration;
+
+/**
+ * Defines when data written to a file backed access is written to the storage device.
+ * Regardless of the mode, calling force on the access writes all changes to the storage device.
+ * @param mode the durability mode
+ * @param interval the interval of background syncs, only used by {@link Mode#PERIODIC}
+ */
+public record IODurability(Mode mode, Duration interval) {
+
+    public enum Mode {
+        /**
+         * Writes are never synced implicitly
+         */
+        NONE,
+        /**
+         * Every write synchronously writes the file content, but not necessarily all file metadata
+         */
+        DATA,
+        /**
+         * Every write synchronously writes the file content and metadata
+         */
+        SYNC,
+        /**
+         * Writes are synced by a background thread in a fixed interval
+         */
+        PERIODIC
+    }
+
+    public IODurability {
+        if(mode == null) throw new NullPointerException("mode must not be null.");
+        if(mode == Mode.PERIODIC && (interval == null || interval.isNegative() || interval.isZero())) {
+            throw new IllegalArgumentException("Periodic durability requires a positive interval.");
+        }
+    }
+
+    public static IODurability none() {
+        return new IODurability(Mode.NONE, null);
+    }
+
+    public static IODurability data() {
+        return new IODurability(Mode.DATA, null);
+    }
+
+    public static IODurability sync() {
+        return new IODurability(Mode.SYNC, null);
+    }
+
+    public static IODurability periodic(final Duration interval) {
+        return new IODurability(Mode.PERIODIC, interval);
+    }
+
+    /**
+     * @return the {@link java.io.RandomAccessFile} mode used to open a file with write access
+     */
+    String fileMode() {
+        return switch(mode) {
+            case DATA -> "rwd";
+            case SYNC -> "rws";
+            default -> "rw";
+        };
+    }
+}
@@ -0,0 +1,272 @@
+package com.bethibande.memory;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events emitted by the library. Events are only created if recording is enabled,
+ * and span the timed operation, e.g. the native allocation, free, map or unmap call.
+ * Bulk and I/O events are only created for operations of at least {@link #THRESHOLD} bytes,
+ * configurable using the system property {@code com.bethibande.memory.jfr.threshold}.
+ */
+final class IOEvents {
+
+    static final long THRESHOLD = Long.getLong("com.bethibande.memory.jfr.threshold", 64 * 1024);
+
+    private static final String CATEGORY = "Memory Access";
+
+    private IOEvents() { }
+
+    @Name("com.bethibande.memory.Allocation")
+    @Label("Native Allocation")
+    @Category(CATEGORY)
+    @Description("Native memory allocated or resized by an access")
+    static final class Allocation extends Event {
+
+        @Label("Backend")
+        String backend;
+
+        @Label("Size")
+        @DataAmount
+        long size;
+
+        @Label("Previous Size")
+        @Description("The size before resizing, 0 for new allocations")
+        @DataAmount
+        long previous;
+    }
+
+    @Name("com.bethibande.memory.Free")
+    @Label("Native Free")
+    @Category(CATEGORY)
+    @Description("Native memory freed by an access")
+    static final class Free extends Event {
+
+        @Label("Backend")
+        String backend;
+
+        @Label("Size")
+        @DataAmount
+        long size;
+    }
+
+    @Name("com.bethibande.memory.Mapping")
+    @Label("File Mapping")
+    @Category(CATEGORY)
+    @Description("A file mapped into memory")
+    static final class Mapping extends Event {
+
+        @Label("Path")
+        String path;
+
+        @Label("Mode")
+        String mode;
+
+        @Label("Offset")
+        long offset;
+
+        @Label("Size")
+        @DataAmount
+        long size;
+    }
+
+    @Name("com.bethibande.memory.Unmapping")
+    @Label("File Unmapping")
+    @Category(CATEGORY)
+    @Description("A file mapping released by an access")
+    static final class Unmapping extends Event {
+
+        @Label("Path")
+        String path;
+
+        @Label("Size")
+        @DataAmount
+        long size;
+    }
+
+    @Name("com.bethibande.memory.Bulk")
+    @Label("Bulk Operation")
+    @Category(CATEGORY)
+    @Description("A large copy or fill operation")
+    static final class Bulk extends Event {
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Backend")
+        String backend;
+
+        @Label("Size")
+        @DataAmount
+        long size;
+    }
+
+    @Name("com.bethibande.memory.Transfer")
+    @Label("File/Stream I/O")
+    @Category(CATEGORY)
+    @Description("A large read or write of a file or stream")
+    static final class Transfer extends Event {
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Backend")
+        String backend;
+
+        @Label("Size")
+        @DataAmount
+        long size;
+    }
+
+    private static final Allocation ALLOCATION = new Allocation();
+    private static final Free FREE = new Free();
+    private static final Mapping MAPPING = new Mapping();
+    private static final Unmapping UNMAPPING = new Unmapping();
+    private static final Bulk BULK = new Bulk();
+    private static final Transfer TRANSFER = new Transfer();
+
+    /**
+     * @return a started event, or null if the recording is disabled
+     */
+    static Allocation allocation() {
+        if(!ALLOCATION.isEnabled()) return null;
+
+        final Allocation event = new Allocation();
+        event.begin();
+        return event;
+    }
+
+    static void allocation(final Allocation event, final String backend, final long size) {
+        allocation(event, backend, size, 0L);
+    }
+
+    static void allocation(final Allocation event, final String backend, final long size, final long previous) {
+        if(event == null) return;
+
+        event.end();
+        if(!event.shouldCommit()) return;
+
+        event.backend = backend;
+        event.size = size;
+        event.previous = previous;
+        event.commit();
+    }
+
+    /**
+     * @return a started event, or null if the recording is disabled
+     */
+    static Free free() {
+        if(!FREE.isEnabled()) return null;
+
+        final Free event = new Free();
+        event.begin();
+        return event;
+    }
+
+    static void free(final Free event, final String backend, final long size) {
+        if(event == null) return;
+
+        event.end();
+        if(!event.shouldCommit()) return;
+
+        event.backend = backend;
+        event.size = size;
+        event.commit();
+    }
+
+    /**
+     * @return a started event, or null if the recording is disabled
+     */
+    static Unmapping unmapping() {
+        if(!UNMAPPING.isEnabled()) return null;
+
+        final Unmapping event = new Unmapping();
+        event.begin();
+        return event;
+    }
+
+    static void unmapping(final Unmapping event, final String path, final long size) {
+        if(event == null) return;
+
+        event.end();
+        if(!event.shouldCommit()) return;
+
+        event.path = path;
+        event.size = size;
+        event.commit();
+    }
+
+    /**
+     * @return a started event, or null if the recording is disabled
+     */
+    static Mapping mapping() {
+        if(!MAPPING.isEnabled()) return null;
+
+        final Mapping event = new Mapping();
+        event.begin();
+        return event;
+    }
+
+    static void mapping(final Mapping event, final String path, final String mode, final long offset, final long size) {
+        if(event == null) return;
+
+        event.end();
+        if(!event.shouldCommit()) return;
+
+        event.path = path;
+        event.mode = mode;
+        event.offset = offset;
+        event.size = size;
+        event.commit();
+    }
+
+    /**
+     * @return a started event, or null if the operation is smaller than the threshold or the recording is disabled
+     */
+    static Bulk bulk(final long size) {
+        if(size < THRESHOLD || !BULK.isEnabled()) return null;
+
+        final Bulk event = new Bulk();
+        event.begin();
+        return event;
+    }
+
+    static void bulk(final Bulk event, final String operation, final String backend, final long size) {
+        if(event == null) return;
+
+        event.end();
+        if(!event.shouldCommit()) return;
+
+        event.operation = operation;
+        event.backend = backend;
+        event.size = size;
+        event.commit();
+    }
+
+    /**
+     * @return a started event, or null if the operation is smaller than the threshold or the recording is disabled
+     */
+    static Transfer transfer(final long size) {
+        if(size < THRESHOLD || !TRANSFER.isEnabled()) return null;
+
+        final Transfer event = new Transfer();
+        event.begin();
+        return event;
+    }
+
+    static void transfer(final Transfer event, final String operation, final String backend, final long size) {
+        if(event == null) return;
+
+        event.end();
+        if(!event.shouldCommit()) return;
+
+        event.operation = operation;
+        event.backend = backend;
+        event.size = size;
+        event.commit();
+    }
+}
@@ -4,48 +4,170 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Reads/writes a file using positional I/O. Writes may be collected in a write-back buffer,
+ * which coalesces sequential and nearby writes into a single write call.
+ * The buffered data is written to the file when flushing, forcing, releasing or once a write doesn't fit the buffer.
+ */
 class IOFile implements IOAccessible {
 
+    /**
+     * Writes further apart than this from the buffered data are not coalesced
+     */
+    private static final int MAX_GAP = 4096;
+
+    private static final System.Logger LOGGER = System.getLogger(IOFile.class.getName());
+
+    private static ScheduledExecutorService syncExecutor;
+
+    private static synchronized ScheduledExecutorService syncExecutor() {
+        if(syncExecutor == null) {
+            syncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "IOFile-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        return syncExecutor;
+    }
+
+    /**
+     * Forces a file in the background, see {@link IODurability.Mode#PERIODIC}. The file is only weakly referenced,
+     * the task is cancelled once the file has been garbage collected. Failures are logged, the task keeps running.
+     */
+    private static final class PeriodicSync implements Runnable {
+
+        private final WeakReference<IOFile> file;
+        private volatile ScheduledFuture<?> task;
+
+        private PeriodicSync(final IOFile file) {
+            this.file = new WeakReference<>(file);
+        }
+
+        @Override
+        public void run() {
+            final IOFile file = this.file.get();
+            if(file == null) {
+                final ScheduledFuture<?> task = this.task;
+                if(task != null) task.cancel(false);
+                return;
+            }
+            if(!file.channel.isOpen()) return;
+
+            try {
+                file.force();
+            } catch (RuntimeException e) {
+                LOGGER.log(System.Logger.Level.WARNING, "Periodic sync of a file failed.", e);
+            }
+        }
+    }
+
     private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private final IODurability durability;
+
+    private final byte[] buffer;
+    private long bufferStart = -1L;
+    private int dirtyFrom;
+    private int dirtyTo;
+
+    private long position = 0L;
+    private ScheduledFuture<?> syncTask;
 
     public IOFile(final File file, final boolean write, final boolean read) {
+        this(file, write, read, IODurability.sync(), 0);
+    }
+
+    /**
+     * @param durability defines when writes are synced to the storage device
+     * @param bufferSize the size of the write-back buffer, or 0 to write directly to the file
+     */
+    public IOFile(final File file,
+                  final boolean write,
+                  final boolean read,
+                  final IODurability durability,
+                  final int bufferSize) {
         try {
-            this.raf = new RandomAccessFile(file,  (read ? "r": "") + (write ? "w": "") + "s");
+            this.raf = new RandomAccessFile(file, write ? durability.fileMode(): "r");
         } catch (FileNotFoundException e) {
             throw new RuntimeException(e);
         }
+
+        this.channel = raf.getChannel();
+        this.durability = durability;
+        this.buffer = bufferSize > 0 ? new byte[bufferSize]: null;
+
+        if(write && durability.mode() == IODurability.Mode.PERIODIC) {
+            final long interval = durability.interval().toNanos();
+            final PeriodicSync sync = new PeriodicSync(this);
+            this.syncTask = syncExecutor().scheduleWithFixedDelay(sync, interval, interval, TimeUnit.NANOSECONDS);
+            sync.task = this.syncTask;
+        }
     }
 
     public IOFile(final RandomAccessFile raf) {
         this.raf = raf;
+        this.channel = raf.getChannel();
+        this.durability = IODurability.none();
+        this.buffer = null;
+    }
+
+    @Override
+    public String backend() {
+        return "file";
     }
 
     @Override
     public void setIndex(final long index) {
-        try {
-            raf.seek(index);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        this.position = index;
     }
 
     @Override
     public void skip(final long bytes) {
+        this.position += bytes;
+    }
+
+    /**
+     * Writes the write-back buffer to the file, this does not sync the file unless the durability requires it
+     */
+    @Override
+    public synchronized void flush() {
+        if(bufferStart < 0) return;
+
+        final long start = bufferStart + dirtyFrom;
+        final int length = dirtyTo - dirtyFrom;
+        bufferStart = -1L;
+
+        writeFully(buffer, dirtyFrom, length, start);
+    }
+
+    @Override
+    public void force() {
+        flush();
+
         try {
-            raf.seek(raf.getFilePointer() + bytes);
+            IOStatistics.fileForce();
+            channel.force(false);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
-    @Override
-    public void flush() {
-        throw new UnsupportedOperationException("IOAccessible not flushable");
-    }
-
     @Override
     public void release() {
+        if(syncTask != null) syncTask.cancel(false);
+        flush();
+
         try {
             raf.close();
         } catch (IOException e) {
@@ -53,102 +175,124 @@ class IOFile implements IOAccessible {
         }
     }
 
-    @Override
-    public byte read() {
+    private void readFully(final byte[] dst, final int off, final int len, final long index) {
+        final IOEvents.Transfer event = IOEvents.transfer(len);
+        final ByteBuffer target = ByteBuffer.wrap(dst, off, len);
         try {
-            return raf.readByte();
+            while(target.hasRemaining()) {
+                IOStatistics.fileRead();
+                if(channel.read(target, index + target.position() - off) < 0) break;
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+
+        if(target.hasRemaining()) Arrays.fill(dst, target.position(), off + len, (byte) 0);
+        IOEvents.transfer(event, "read", "file", len);
     }
 
-    @Override
-    public byte[] read(final int len) {
-        final byte[] bytes = new byte[len];
+    private void writeFully(final byte[] src, final int off, final int len, final long index) {
+        final IOEvents.Transfer event = IOEvents.transfer(len);
+        final ByteBuffer source = ByteBuffer.wrap(src, off, len);
         try {
-            raf.read(bytes, 0, len);
-            return bytes;
+            while(source.hasRemaining()) {
+                IOStatistics.fileWrite();
+                channel.write(source, index + source.position() - off);
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        IOEvents.transfer(event, "write", "file", len);
     }
 
-    @Override
-    public byte get(final long index) {
-        final long pointer;
-        try {
-            pointer = raf.getFilePointer();
+    /**
+     * Copies buffered, not yet written bytes overlapping the given region into the given array
+     */
+    private void overlay(final byte[] dst, final int off, final int len, final long index) {
+        if(bufferStart < 0) return;
 
-            raf.seek(index);
-            final byte b = raf.readByte();
-            raf.seek(pointer);
+        final long from = Math.max(index, bufferStart + dirtyFrom);
+        final long to = Math.min(index + len, bufferStart + dirtyTo);
+        if(from >= to) return;
 
-            return b;
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        System.arraycopy(buffer, (int) (from - bufferStart), dst, off + (int) (from - index), (int) (to - from));
+    }
+
+    private boolean fitsBuffer(final long index, final int len) {
+        if(bufferStart < 0) return true;
+        if(index < bufferStart || index + len > bufferStart + buffer.length) return false;
+
+        final long offset = index - bufferStart;
+        return offset - dirtyTo <= MAX_GAP && dirtyFrom - (offset + len) <= MAX_GAP;
+    }
+
+    private synchronized void buffered(final byte[] data, final int off, final int len, final long index) {
+        if(buffer == null || len > buffer.length) {
+            flush();
+            writeFully(data, off, len, index);
+            return;
         }
+
+        if(!fitsBuffer(index, len)) flush();
+        if(bufferStart < 0) {
+            bufferStart = index;
+            dirtyFrom = 0;
+            dirtyTo = 0;
+        }
+
+        final int offset = (int) (index - bufferStart);
+        if(offset > dirtyTo) readFully(buffer, dirtyTo, offset - dirtyTo, bufferStart + dirtyTo);
+        if(offset + len < dirtyFrom) readFully(buffer, offset + len, dirtyFrom - offset - len, bufferStart + offset + len);
+
+        System.arraycopy(data, off, buffer, offset, len);
+        dirtyFrom = Math.min(dirtyFrom, offset);
+        dirtyTo = Math.max(dirtyTo, offset + len);
     }
 
     @Override
-    public byte[] get(final long index, final int length) {
-        final long pointer;
-        try {
-            pointer = raf.getFilePointer();
+    public byte read() {
+        return get(position++);
+    }
 
-            raf.seek(index);
-            final byte[] bytes = new byte[length];
-            raf.read(bytes, 0, length);
-            raf.seek(pointer);
+    @Override
+    public byte[] read(final int len) {
+        final byte[] bytes = get(position, len);
+        position += len;
+        return bytes;
+    }
 
-            return bytes;
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+    @Override
+    public byte get(final long index) {
+        return get(index, 1)[0];
+    }
+
+    @Override
+    public synchronized byte[] get(final long index, final int length) {
+        final byte[] bytes = new byte[length];
+        readFully(bytes, 0, length, index);
+        overlay(bytes, 0, length, index);
+        return bytes;
     }
 
     @Override
     public void write(final byte b) {
-        try {
-            raf.writeByte(b);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        set(b, position++);
     }
 
     @Override
     public void write(final byte[] data, final int off, final int len) {
-        try {
-            raf.write(data, off, len);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        buffered(data, off, len, position);
+        position += len;
     }
 
     @Override
     public void set(final byte b, final long index) {
-        try {
-            final long pointer = raf.getFilePointer();
-
-            raf.seek(index);
-            raf.write(b);
-            raf.seek(pointer);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-
+        buffered(new byte[] { b }, 0, 1, index);
     }
 
     @Override
     public void set(final byte[] b, final long index, final int off, final int len) {
-        try {
-            final long pointer = raf.getFilePointer();
-
-            raf.seek(index);
-            raf.write(b, off, len);
-            raf.seek(pointer);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        buffered(b, off, len, index);
     }
 
     @Override
@@ -168,4 +312,8 @@ class IOFile implements IOAccessible {
         final byte[] data = accessible.read(length);
         write(data, 0, data.length);
     }
-}
\ No newline at end of file
+
+    public IODurability getDurability() {
+        return durability;
+    }
+}
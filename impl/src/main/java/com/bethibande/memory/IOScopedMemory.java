@@ -7,6 +7,7 @@ import jdk.incubator.foreign.MemorySegment;
 import jdk.incubator.foreign.ResourceScope;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
 import java.nio.file.Path;
@@ -17,53 +18,188 @@ class IOScopedMemory implements IOAccessible {
     private static final byte ONE = 0x01;
     private static final byte ZERO = 0x00;
 
+    /**
+     * Whether segments of raw addresses may be created, see <code>--enable-native-access</code>
+     */
+    private static final boolean NATIVE_ACCESS = nativeAccess();
+
+    /**
+     * @return whether views of raw addresses can be created, see {@link #bufferAt(long, int)}
+     */
+    static boolean isNativeAccessEnabled() {
+        return NATIVE_ACCESS;
+    }
+
+    private static boolean nativeAccess() {
+        try {
+            MemoryAddress.NULL.asSegment(1, ResourceScope.globalScope());
+            return true;
+        } catch (IllegalCallerException e) {
+            return false;
+        }
+    }
+
     public static IOScopedMemory mapFile(final Path path,
                                          final long offset,
                                          final long size,
                                          final FileChannel.MapMode mode) throws IOException {
+        return mapFile(path, offset, size, mode, false);
+    }
+
+    /**
+     * @param shared whether the mapped memory may be accessed by any thread, otherwise only the calling thread
+     *               may access the memory
+     */
+    public static IOScopedMemory mapFile(final Path path,
+                                         final long offset,
+                                         final long size,
+                                         final FileChannel.MapMode mode,
+                                         final boolean shared) throws IOException {
         if(path == null || mode == null) throw new NullPointerException("path and mode must not be null.");
         if(!path.toFile().isFile()) throw new IllegalArgumentException("The specified path must be a file.");
 
-        final ResourceScope scope = ResourceScope.newConfinedScope();
+        final ResourceScope scope = shared ? ResourceScope.newSharedScope(): ResourceScope.newConfinedScope();
+        final Release release = new Release(scope, "mapped", path.toString(), size);
+
+        final IOEvents.Mapping event = IOEvents.mapping();
         final MemorySegment segment = MemorySegment.mapFile(path, offset, size, mode, scope);
+        IOEvents.mapping(event, path.toString(), mode.toString(), offset, size);
 
-        return new IOScopedMemory(scope, segment);
+        return release.track(new IOScopedMemory(scope, segment));
     }
 
     public static IOScopedMemory allocateAlignedNative(final Object _layout) {
         if(!(_layout instanceof MemoryLayout layout)) throw new IllegalArgumentException("layout must be an instance of jdk.incubator.foreign.MemoryLayout.");
 
         final ResourceScope scope = ResourceScope.newConfinedScope();
-        return new IOScopedMemory(scope, MemorySegment.allocateNative(layout, scope));
+        final Release release = new Release(scope, "scoped", null, layout.byteSize());
+
+        final IOEvents.Allocation event = IOEvents.allocation();
+        final MemorySegment segment = MemorySegment.allocateNative(layout, scope);
+        IOEvents.allocation(event, "scoped", layout.byteSize());
+
+        return release.track(new IOScopedMemory(scope, segment));
     }
 
+    /**
+     * Creates a segment of native memory at the given address, without copying. <br>
+     * <b>!! Note:</b> Requires native access to be enabled, see <code>--enable-native-access</code>.
+     * @throws IllegalCallerException if native access is not enabled
+     */
     public static IOScopedMemory atAddress(final long addr, final long size) {
         final MemoryAddress address = MemoryAddress.ofLong(addr);
         final ResourceScope scope = ResourceScope.newConfinedScope();
         return new IOScopedMemory(scope, address.asSegment(size, scope));
     }
 
+    /**
+     * Creates a {@link ByteBuffer} view of native memory at the given address, without copying.
+     * The view is bound to the global scope, it does not own the memory and may be used by any thread. <br>
+     * <b>!! Note:</b> Requires native access to be enabled, see <code>--enable-native-access</code>,
+     * otherwise no view is created and callers have to copy the memory instead.
+     * Using the buffer after the memory has been freed, will corrupt memory or crash the jvm.
+     * @return a new buffer in native byte order, the position is 0 and the limit equals the capacity,
+     * or null if native access is not enabled
+     */
+    static ByteBuffer bufferAt(final long address, final int length) {
+        if(length == 0) return ByteBuffer.allocateDirect(0).order(ByteOrder.nativeOrder());
+        if(!NATIVE_ACCESS) return null;
+
+        return MemoryAddress.ofLong(address)
+                .asSegment(length, ResourceScope.globalScope())
+                .asByteBuffer()
+                .order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Wraps the remaining bytes of the given buffer, without copying. The segment is read-only if the buffer is read-only.
+     */
+    public static IOScopedMemory ofByteBuffer(final ByteBuffer buffer) {
+        return new IOScopedMemory(ResourceScope.globalScope(), MemorySegment.ofByteBuffer(buffer));
+    }
+
     public static IOScopedMemory allocateNative(final long size) {
-        final ResourceScope scope = ResourceScope.newConfinedScope();
-        return new IOScopedMemory(scope, MemorySegment.allocateNative(size, scope));
+        return allocateAlignedNative(size, 1L);
     }
 
     public static IOScopedMemory allocateAlignedNative(final long size, final long alignment) {
         final ResourceScope scope = ResourceScope.newConfinedScope();
-        return new IOScopedMemory(scope, MemorySegment.allocateNative(size, alignment, scope));
+        final Release release = new Release(scope, "scoped", null, size);
+
+        final IOEvents.Allocation event = IOEvents.allocation();
+        final MemorySegment segment = MemorySegment.allocateNative(size, alignment, scope);
+        IOEvents.allocation(event, "scoped", size);
+
+        return release.track(new IOScopedMemory(scope, segment));
+    }
+
+    /**
+     * Records the release of an allocation or mapping, the memory is recorded as freed once its scope is closed,
+     * regardless of whether the memory or one of its slices is released. <br>
+     * The close actions of a scope run in reverse order of registration, the release is created before
+     * and tracked after allocating, so the event spans the native free or unmap registered by the allocation.
+     */
+    private static final class Release {
+
+        private final ResourceScope scope;
+        private final String backend;
+        private final String path;
+        private final long size;
+
+        private IOEvents.Free free;
+        private IOEvents.Unmapping unmapping;
+
+        private Release(final ResourceScope scope, final String backend, final String path, final long size) {
+            this.scope = scope;
+            this.backend = backend;
+            this.path = path;
+            this.size = size;
+
+            scope.addCloseAction(this::end);
+        }
+
+        private IOScopedMemory track(final IOScopedMemory memory) {
+            IOStatistics.allocated(backend, size);
+            scope.addCloseAction(this::begin);
+
+            return memory;
+        }
+
+        private void begin() {
+            if(path != null) {
+                unmapping = IOEvents.unmapping();
+            } else {
+                free = IOEvents.free();
+            }
+        }
+
+        private void end() {
+            if(path != null) {
+                IOEvents.unmapping(unmapping, path, size);
+            } else {
+                IOEvents.free(free, backend, size);
+            }
+            IOStatistics.freed(backend, size);
+        }
     }
 
     private final ResourceScope scope;
     private final MemorySegment segment;
 
     private ByteOrder order = ByteOrder.nativeOrder();
-    private AtomicLong index;
+    private AtomicLong index = new AtomicLong();
 
     public IOScopedMemory(final ResourceScope scope, final MemorySegment segment) {
         this.scope = scope;
         this.segment = segment;
     }
 
+    @Override
+    public String backend() {
+        if(segment.isMapped()) return "mapped";
+        return segment.isNative() ? "scoped": "heap";
+    }
+
     @Override
     public void setByteOrder(final ByteOrder order) {
         this.order = order;
@@ -79,6 +215,29 @@ class IOScopedMemory implements IOAccessible {
         return new IOScopedMemory(scope, segment.asSlice(index, length));
     }
 
+    @Override
+    public ByteBuffer asByteBuffer(final long index, final int length) {
+        return segment.asSlice(index, length).asByteBuffer();
+    }
+
+    /**
+     * Byte buffers of shared segments cannot be used for most I/O operations,
+     * those segments should be viewed using their raw address instead.
+     * @return the raw native address of a shared, native segment, or -1 if the segment is confined or on-heap
+     */
+    public long sharedAddress() {
+        if(scope.ownerThread() != null) return -1L;
+        return address();
+    }
+
+    /**
+     * @return the raw address of the first byte of a native segment, or -1 if the segment is on-heap
+     */
+    public long address() {
+        if(!segment.isNative()) return -1L;
+        return segment.address().toRawLongValue();
+    }
+
     public byte readByte() {
         return getByte(index.getAndIncrement());
     }
@@ -222,8 +381,54 @@ class IOScopedMemory implements IOAccessible {
         throw new UnsupportedOperationException("IOScopedMemory does not support flush operations");
     }
 
+    @Override
+    public void force() {
+        if(!segment.isMapped()) throw new UnsupportedOperationException("Only memory mapped files can be forced");
+        segment.force();
+        IOStatistics.fileForce();
+    }
+
+    @Override
+    public void force(final long index, final long length) {
+        if(!segment.isMapped()) throw new UnsupportedOperationException("Only memory mapped files can be forced");
+        segment.asSlice(index, length).force();
+        IOStatistics.fileForce();
+    }
+
+    private MemorySegment mapped(final long index, final long length) {
+        if(!segment.isMapped()) throw new UnsupportedOperationException("Only memory mapped files can be loaded");
+        return segment.asSlice(index, length);
+    }
+
+    @Override
+    public void load(final long index, final long length) {
+        mapped(index, length).load();
+    }
+
+    @Override
+    public boolean isLoaded(final long index, final long length) {
+        return mapped(index, length).isLoaded();
+    }
+
+    @Override
+    public void unload(final long index, final long length) {
+        mapped(index, length).unload();
+    }
+
+    public void fill(final long index, final long length, final byte value) {
+        final IOEvents.Bulk event = IOEvents.bulk(length);
+        segment.asSlice(index, length).fill(value);
+        IOEvents.bulk(event, "fill", backend(), length);
+    }
+
+    /**
+     * Closes the scope of the memory, memory bound to the global or an implicit scope, e.g. wrapped buffers,
+     * cannot be closed and is only released by the garbage collector
+     */
     @Override
     public void release() {
+        if(scope == ResourceScope.globalScope() || scope.isImplicit()) return;
+
         scope.close();
     }
 
@@ -257,9 +462,7 @@ class IOScopedMemory implements IOAccessible {
     @Override
     public void write(final byte[] data, final int off, final int len) {
         final MemorySegment slice = segment.asSlice(index.getAndAdd(len), len);
-        final byte[] dataCopy = off == 0L ? data : new byte[len];
-        if(off != 0 || len != data.length) System.arraycopy(data, off, dataCopy, 0, len);
-        slice.copyFrom(MemorySegment.ofArray(dataCopy));
+        slice.copyFrom(MemorySegment.ofArray(data).asSlice(off, len));
     }
 
     @Override
@@ -270,9 +473,7 @@ class IOScopedMemory implements IOAccessible {
     @Override
     public void set(final byte[] b, final long index, final int off, final int len) {
         final MemorySegment slice = segment.asSlice(index, len);
-        final byte[] dataCopy = off == 0L ? b : new byte[len];
-        if(off != 0 || len != b.length) System.arraycopy(b, off, dataCopy, 0, len);
-        slice.copyFrom(MemorySegment.ofArray(dataCopy));
+        slice.copyFrom(MemorySegment.ofArray(b).asSlice(off, len));
     }
 
     @Override
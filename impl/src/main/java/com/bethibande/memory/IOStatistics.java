@@ -0,0 +1,146 @@
+package com.bethibande.memory;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Library wide counters of native memory and I/O, exported using JMX.
+ * Bytes read and written are counted by bulk operations, e.g. reading/writing byte arrays or copying accesses,
+ * primitive reads and writes are not counted to keep them cheap. <br>
+ * The counters can be disabled by setting the system property {@code com.bethibande.memory.statistics} to false,
+ * all updates are skipped in that case.
+ */
+final class IOStatistics {
+
+    static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("com.bethibande.memory.statistics", "true"));
+
+    private static final Map<String, LongAdder> NATIVE_BYTES = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> BYTES_READ = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> BYTES_WRITTEN = new ConcurrentHashMap<>();
+
+    private static final LongAdder LIVE_ALLOCATIONS = new LongAdder();
+    private static final LongAdder SLICES = new LongAdder();
+    private static final LongAdder FILE_READS = new LongAdder();
+    private static final LongAdder FILE_WRITES = new LongAdder();
+    private static final LongAdder FILE_FORCES = new LongAdder();
+
+    private IOStatistics() { }
+
+    private static void add(final Map<String, LongAdder> counters, final String backend, final long value) {
+        final LongAdder counter = counters.get(backend);
+        if(counter != null) {
+            counter.add(value);
+            return;
+        }
+
+        counters.computeIfAbsent(backend, key -> new LongAdder()).add(value);
+    }
+
+    private static Map<String, Long> snapshot(final Map<String, LongAdder> counters) {
+        final Map<String, Long> snapshot = new TreeMap<>();
+        counters.forEach((backend, counter) -> snapshot.put(backend, counter.sum()));
+        return snapshot;
+    }
+
+    /**
+     * Called once native memory has been allocated or a file has been mapped
+     */
+    static void allocated(final String backend, final long bytes) {
+        if(!ENABLED) return;
+
+        add(NATIVE_BYTES, backend, bytes);
+        LIVE_ALLOCATIONS.increment();
+    }
+
+    /**
+     * Called once native memory has been freed or a file has been unmapped
+     */
+    static void freed(final String backend, final long bytes) {
+        if(!ENABLED) return;
+
+        add(NATIVE_BYTES, backend, -bytes);
+        LIVE_ALLOCATIONS.decrement();
+    }
+
+    static void slice() {
+        if(!ENABLED) return;
+
+        SLICES.increment();
+    }
+
+    static void read(final String backend, final long bytes) {
+        if(!ENABLED) return;
+
+        add(BYTES_READ, backend, bytes);
+    }
+
+    static void written(final String backend, final long bytes) {
+        if(!ENABLED) return;
+
+        add(BYTES_WRITTEN, backend, bytes);
+    }
+
+    static void fileRead() {
+        if(!ENABLED) return;
+
+        FILE_READS.increment();
+    }
+
+    static void fileWrite() {
+        if(!ENABLED) return;
+
+        FILE_WRITES.increment();
+    }
+
+    static void fileForce() {
+        if(!ENABLED) return;
+
+        FILE_FORCES.increment();
+    }
+
+    static Map<String, Long> nativeBytes() {
+        return snapshot(NATIVE_BYTES);
+    }
+
+    static Map<String, Long> bytesRead() {
+        return snapshot(BYTES_READ);
+    }
+
+    static Map<String, Long> bytesWritten() {
+        return snapshot(BYTES_WRITTEN);
+    }
+
+    static long liveAllocations() {
+        return LIVE_ALLOCATIONS.sum();
+    }
+
+    static long slices() {
+        return SLICES.sum();
+    }
+
+    static long fileReads() {
+        return FILE_READS.sum();
+    }
+
+    static long fileWrites() {
+        return FILE_WRITES.sum();
+    }
+
+    static long fileForces() {
+        return FILE_FORCES.sum();
+    }
+
+    /**
+     * Resets all cumulative counters, live native bytes and allocations are kept
+     */
+    static void reset() {
+        BYTES_READ.values().forEach(LongAdder::reset);
+        BYTES_WRITTEN.values().forEach(LongAdder::reset);
+        SLICES.reset();
+        FILE_READS.reset();
+        FILE_WRITES.reset();
+        FILE_FORCES.reset();
+    }
+}
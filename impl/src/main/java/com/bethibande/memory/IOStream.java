@@ -5,17 +5,43 @@ import org.jetbrains.annotations.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
 
+/**
+ * Reads/writes streams. Bytes read ahead of the current position, e.g. by peek or ensure,
+ * and bytes read after a mark are kept in a ring buffer, which is reused and only grows
+ * if the lookahead or mark window doesn't fit.
+ */
 class IOStream implements IOAccessible {
 
+    private static final int INITIAL_CAPACITY = 4096;
+
     private final OutputStream output;
     private final InputStream input;
 
+    private byte[] ring;
+    private int mask;
+
+    /**
+     * Absolute stream positions of the next byte to read and the end of the buffered bytes
+     */
+    private long position = 0L;
+    private long limit = 0L;
+
+    private long mark = -1L;
+    private int markLimit;
+    private boolean eof = false;
+
     public IOStream(final @Nullable OutputStream output, final @Nullable InputStream input) {
         this.output = output;
         this.input = input;
     }
 
+    @Override
+    public String backend() {
+        return "stream";
+    }
+
     @Override
     public void setIndex(final long index) {
         throw new UnsupportedOperationException("IOAccessible is not indexed.");
@@ -23,13 +49,26 @@ class IOStream implements IOAccessible {
 
     @Override
     public void skip(final long bytes) {
-        if(input != null) {
-            try {
-                input.skipNBytes(bytes);
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
+        if(input == null) return;
+
+        final long buffered = Math.min(bytes, limit - position);
+        consume(buffered);
+        if(buffered == bytes) return;
+
+        checkMark(position + bytes - buffered);
+        if(mark >= 0) {
+            fill(position + bytes - buffered);
+            consume(Math.min(bytes - buffered, limit - position));
+            return;
+        }
+
+        try {
+            input.skipNBytes(bytes - buffered);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
+        position += bytes - buffered;
+        limit = position;
     }
 
     @Override
@@ -65,11 +104,146 @@ class IOStream implements IOAccessible {
         if(input == null) throw new IllegalAccessError("IOAccessible is not readable");
     }
 
+    /**
+     * Advances the position within the buffered bytes, invalidates the mark once the read limit is exceeded
+     */
+    private void consume(final long bytes) {
+        position += bytes;
+        if(mark >= 0 && position - mark > markLimit) mark = -1L;
+    }
+
+    /**
+     * Invalidates the mark if moving to the given absolute position exceeds the read limit,
+     * so bytes beyond the limit are read from the stream without buffering them
+     */
+    private void checkMark(final long target) {
+        if(mark >= 0 && target - mark > markLimit) mark = -1L;
+    }
+
+    /**
+     * Grows the ring buffer to hold at least the given number of bytes, retained bytes are kept
+     */
+    private void ensureCapacity(final long bytes) {
+        if(ring != null && bytes <= ring.length) return;
+        if(bytes > 1 << 30) throw new IllegalArgumentException("Cannot buffer more than 1 GiB.");
+
+        int capacity = ring != null ? ring.length: INITIAL_CAPACITY;
+        while(capacity < bytes) capacity <<= 1;
+
+        final byte[] grown = new byte[capacity];
+        final long start = mark >= 0 ? mark: position;
+        if(ring != null) {
+            for(long i = start; i < limit; i++) {
+                grown[(int) (i & (capacity - 1))] = ring[(int) (i & mask)];
+            }
+        }
+
+        this.ring = grown;
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Reads from the stream until the given absolute position is buffered or the end of the stream is reached
+     * @return true if the position is buffered
+     */
+    private boolean fill(final long target) {
+        if(target <= limit) return true;
+        if(eof) return false;
+
+        final long start = mark >= 0 ? mark: position;
+        ensureCapacity(target - start);
+
+        try {
+            while(limit < target) {
+                final int offset = (int) (limit & mask);
+                final int free = ring.length - (int) (limit - start);
+                final int read = input.read(ring, offset, Math.min(free, ring.length - offset));
+                if(read < 0) {
+                    eof = true;
+                    return false;
+                }
+
+                limit += read;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        return true;
+    }
+
+    /**
+     * Copies buffered bytes starting at the given absolute position
+     */
+    private void copy(final long from, final byte[] dst, final int off, final int len) {
+        if(len == 0) return;
+
+        final int offset = (int) (from & mask);
+        final int first = Math.min(len, ring.length - offset);
+        System.arraycopy(ring, offset, dst, off, first);
+        System.arraycopy(ring, 0, dst, off + first, len - first);
+    }
+
+    @Override
+    public byte[] peek(final long offset, final int length) {
+        checkRead();
+        if(!fill(position + offset + length)) {
+            throw new IndexOutOfBoundsException("End of stream reached, only %d bytes available.".formatted(limit - position));
+        }
+
+        final byte[] bytes = new byte[length];
+        copy(position + offset, bytes, 0, length);
+        return bytes;
+    }
+
+    @Override
+    public boolean ensure(final long bytes) {
+        checkRead();
+        return fill(position + bytes);
+    }
+
+    @Override
+    public long available() {
+        checkRead();
+        try {
+            return limit - position + input.available();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void mark(final int readLimit) {
+        checkRead();
+        this.mark = position;
+        this.markLimit = readLimit;
+    }
+
+    @Override
+    public long reset() {
+        if(mark < 0) throw new IllegalStateException("The stream has not been marked or the mark has been invalidated.");
+
+        final long rewound = position - mark;
+        position = mark;
+        return rewound;
+    }
+
     @Override
     public byte read() {
         checkRead();
+        if(position < limit || mark >= 0) {
+            if(!fill(position + 1)) throw new IndexOutOfBoundsException("End of stream reached.");
+
+            final byte b = ring[(int) (position & mask)];
+            consume(1);
+            return b;
+        }
+
         try {
-            return input.readNBytes(1)[0];
+            final byte b = input.readNBytes(1)[0];
+            position++;
+            limit = position;
+            return b;
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -77,12 +251,44 @@ class IOStream implements IOAccessible {
 
     @Override
     public byte[] read(final int len) {
+        final IOEvents.Transfer event = IOEvents.transfer(len);
+        final byte[] bytes = readBuffered(len);
+        IOEvents.transfer(event, "read", "stream", bytes.length);
+        return bytes;
+    }
+
+    private byte[] readBuffered(final int len) {
         checkRead();
+        checkMark(position + len);
+        if(mark >= 0) fill(position + len);
+
+        final int buffered = (int) Math.min(len, limit - position);
+        if(buffered == 0 && mark < 0) {
+            try {
+                final byte[] bytes = input.readNBytes(len);
+                position += bytes.length;
+                limit = position;
+                return bytes;
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        byte[] bytes = new byte[len];
+        copy(position, bytes, 0, buffered);
+        consume(buffered);
+        if(buffered == len || mark >= 0) return buffered == len ? bytes: Arrays.copyOf(bytes, buffered);
+
         try {
-            return input.readNBytes(len);
+            final int read = input.readNBytes(bytes, buffered, len - buffered);
+            position += read;
+            limit = position;
+            if(buffered + read < len) bytes = Arrays.copyOf(bytes, buffered + read);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+
+        return bytes;
     }
 
     @Override
@@ -112,11 +318,13 @@ class IOStream implements IOAccessible {
     @Override
     public void write(final byte[] data, final int off, final int len) {
         checkWrite();
+        final IOEvents.Transfer event = IOEvents.transfer(len);
         try {
             output.write(data, off, len);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        IOEvents.transfer(event, "write", "stream", len);
     }
 
     @Override
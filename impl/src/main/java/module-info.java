@@ -3,6 +3,7 @@ module memory.access.impl {
     requires java.base;
     requires jdk.incubator.foreign;
     requires jdk.unsupported;
+    requires jdk.jfr;
 
     requires org.jetbrains.annotations;
 